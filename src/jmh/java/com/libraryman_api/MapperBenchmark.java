@@ -0,0 +1,100 @@
+package com.libraryman_api;
+
+import com.libraryman_api.book.Book;
+import com.libraryman_api.book.BookDto;
+import com.libraryman_api.book.BookService;
+import com.libraryman_api.borrowing.BorrowingService;
+import com.libraryman_api.borrowing.Borrowings;
+import com.libraryman_api.borrowing.BorrowingsDto;
+import com.libraryman_api.fine.Fines;
+import com.libraryman_api.member.MemberService;
+import com.libraryman_api.member.Members;
+import com.libraryman_api.member.Role;
+import com.libraryman_api.member.dto.MembersDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// The mappers use none of the collaborators of their services, which are left null
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private BookService bookService;
+    private MemberService memberService;
+    private BorrowingService borrowingService;
+
+    private Book book;
+    private BookDto bookDto;
+    private Members member;
+    private MembersDto memberDto;
+    private Borrowings borrowing;
+    private BorrowingsDto borrowingDto;
+
+    @Setup
+    public void setUp() {
+        bookService = new BookService(null, null, null, null, null, null, null, null);
+        memberService = new MemberService(null, null, null, null, null, null);
+        borrowingService = new BorrowingService(null, null, null, bookService, memberService, null, null, null, null, null, new SimpleMeterRegistry(), null);
+
+        book = new Book("The Hobbit", "J. R. R. Tolkien", "978-0547928227", "Houghton Mifflin", 1937, "Fantasy", 4);
+        book.setBookId(42);
+        member = new Members("Ada Lovelace", "ada@example.com", "$2a$10$hash", Role.USER, new Date());
+        member.setMemberId(7);
+        member.setUsername("ada");
+        Date borrowDate = new Date();
+        borrowing = new Borrowings(book, member, borrowDate, new Date(borrowDate.getTime() + TimeUnit.DAYS.toMillis(15)), null);
+        borrowing.setBorrowingId(1001);
+        borrowing.setFine(new Fines(BigDecimal.TEN, false));
+
+        bookDto = bookService.EntityToDto(book);
+        memberDto = memberService.EntityToDto(member);
+        borrowingDto = borrowingService.EntityToDto(borrowing);
+    }
+
+    @Benchmark
+    public BookDto bookEntityToDto() {
+        return bookService.EntityToDto(book);
+    }
+
+    @Benchmark
+    public Book bookDtoToEntity() {
+        return bookService.DtoToEntity(bookDto);
+    }
+
+    @Benchmark
+    public MembersDto memberEntityToDto() {
+        return memberService.EntityToDto(member);
+    }
+
+    @Benchmark
+    public Members memberDtoToEntity() {
+        return memberService.DtoEntity(memberDto);
+    }
+
+    @Benchmark
+    public BorrowingsDto borrowingEntityToDto() {
+        return borrowingService.EntityToDto(borrowing);
+    }
+
+    @Benchmark
+    public Borrowings borrowingDtoToEntity() {
+        return borrowingService.DtoToEntity(borrowingDto);
+    }
+}
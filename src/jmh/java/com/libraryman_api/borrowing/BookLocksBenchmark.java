@@ -0,0 +1,74 @@
+package com.libraryman_api.borrowing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+// Compares the checkout throughput of one thread with that of every core, each thread checking out books of its own;
+// with striped locks the throughput of all threads should grow with the number of cores
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookLocksBenchmark {
+
+    private static final int BOOKS_PER_THREAD = 32;
+
+    private BookLocks locks;
+
+    @State(Scope.Thread)
+    public static class Checkouts {
+
+        private int firstBookId;
+        private int next;
+
+        @Setup
+        public void setUp(ThreadParams threadParams) {
+            firstBookId = threadParams.getThreadIndex() * BOOKS_PER_THREAD;
+        }
+
+        int nextBookId() {
+            next = (next + 1) % BOOKS_PER_THREAD;
+            return firstBookId + next;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        locks = new BookLocks(256);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object singleThread(Checkouts checkouts) {
+        return checkout(checkouts);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object allThreads(Checkouts checkouts) {
+        return checkout(checkouts);
+    }
+
+    private Object checkout(Checkouts checkouts) {
+        return locks.withLock(checkouts.nextBookId(), () -> {
+            // The work done while a checkout holds its lock, which the JIT cannot fold away
+            Blackhole.consumeCPU(200);
+            return null;
+        });
+    }
+}
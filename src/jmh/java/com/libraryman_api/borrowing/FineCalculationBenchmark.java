@@ -0,0 +1,42 @@
+package com.libraryman_api.borrowing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FineCalculationBenchmark {
+
+    private BorrowingService borrowingService;
+    private Borrowings overdue;
+
+    @Setup
+    public void setUp() {
+        borrowingService = new BorrowingService(null, null, null, null, null, null, null, null, null, null, new SimpleMeterRegistry(), null);
+        overdue = new Borrowings();
+        overdue.setBorrowingId(1001);
+        overdue.setDueDate(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(12)));
+    }
+
+    @Benchmark
+    public BigDecimal calculateFineAmount() {
+        return borrowingService.calculateFineAmount(overdue);
+    }
+}
@@ -0,0 +1,46 @@
+package com.libraryman_api.newsletter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailValidationBenchmark {
+
+    @Param({"ada.lovelace@example.com", "not-an-email@example"})
+    private String email;
+
+    private NewsletterService newsletterService;
+
+    @Setup
+    public void setUp() {
+        newsletterService = new NewsletterService(null, null);
+    }
+
+    @Benchmark
+    public boolean isValidEmail() {
+        return newsletterService.isValidEmail(email);
+    }
+
+    // Baseline: the former implementation, which compiled the pattern on every call
+    @Benchmark
+    public boolean compileOnEveryCall() {
+        return Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$").matcher(email).matches();
+    }
+}
@@ -0,0 +1,71 @@
+package com.libraryman_api.notification;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Compares the parsed templates with the string concatenation that NotificationService used before them
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationRenderingBenchmark {
+
+    private static final String SUBJECT = "Reminder: Book Due Date Approaching";
+    private static final String MEMBER_NAME = "Ada Lovelace";
+    private static final String TITLE = "The Hobbit";
+
+    private NotificationTemplates templates;
+    private Date dueDate;
+
+    // The literal segments of the layout, as javac folded them in the former buildEmail concatenation
+    private String[] layout;
+
+    @Setup
+    public void setUp() throws IOException {
+        templates = new NotificationTemplates(false);
+        dueDate = new Date();
+        try (InputStream in = new ClassPathResource("templates/notifications/layout.html").getInputStream()) {
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            source = source.endsWith("\n") ? source.substring(0, source.length() - 1) : source;
+            layout = source.split("\\{\\{subject}}|\\{\\{memberName}}|\\{\\{message}}", -1);
+        }
+    }
+
+    @Benchmark
+    public String templateReminder() {
+        String message = templates.message(NotificationType.REMINDER, TITLE,
+                NotificationTemplates.format(dueDate, NotificationTemplates.DATE_TIME));
+        return templates.email(SUBJECT, MEMBER_NAME, message);
+    }
+
+    @Benchmark
+    public String concatenatedReminder() {
+        String message = "This is a friendly reminder that the due date to return '" +
+                TITLE + "' is approaching. Please ensure that you return the book by " +
+                LocalDateTime.ofInstant(dueDate.toInstant(), ZoneId.systemDefault()).format(DateTimeFormatter.ofPattern("dd MMMM yyyy HH:mm")) +
+                " to avoid any late fees. 📅" +
+                "<br><br>If you need more time, consider renewing your book through our online portal or by contacting us." +
+                "<br><br>Thank you, and happy reading! 😊";
+        return layout[0] + SUBJECT + layout[1] + MEMBER_NAME + layout[2] + message + layout[3];
+    }
+}
@@ -0,0 +1,65 @@
+package com.libraryman_api.security.jwt;
+
+import com.libraryman_api.member.Members;
+import com.libraryman_api.member.Role;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    // HS512 needs a key of at least 64 bytes
+    private static final String SECRET = "a-benchmark-secret-that-is-long-enough-for-hs512-signatures-0123456789";
+
+    private JwtAuthenticationHelper uncached;
+    private JwtAuthenticationHelper cached;
+    private Members member;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncached = new JwtAuthenticationHelper(SECRET, new NoOpCacheManager());
+        cached = new JwtAuthenticationHelper(SECRET, new ConcurrentMapCacheManager());
+        member = new Members("Ada Lovelace", "ada@example.com", "$2a$10$hash", Role.USER, new Date());
+        member.setMemberId(7);
+        member.setUsername("ada");
+        token = uncached.generateToken(member);
+        cached.getClaimsFromToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return uncached.generateToken(member);
+    }
+
+    // Parses the token and checks its signature, as on the first request carrying it
+    @Benchmark
+    public Claims parseToken() {
+        return uncached.getClaimsFromToken(token);
+    }
+
+    // Reads the verified claims from the tokenClaims cache, as on the following requests
+    @Benchmark
+    public Claims parseCachedToken() {
+        return cached.getClaimsFromToken(token);
+    }
+}
@@ -0,0 +1,114 @@
+package com.libraryman_api.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The latencies of the requests sent by one driver thread, or by all of them once merged.
+ *
+ * <p>Every latency is kept, so that the percentiles are exact rather than estimated from
+ * buckets. A report is used by one thread at a time.</p>
+ */
+class LatencyReport {
+
+    private final Map<String, Samples> endpoints = new LinkedHashMap<>();
+
+    /**
+     * Constructs a report listing the given endpoints, in this order.
+     *
+     * @param endpoints the endpoints, such as {@code GET /api/books}
+     */
+    LatencyReport(List<String> endpoints) {
+        endpoints.forEach(endpoint -> this.endpoints.put(endpoint, new Samples()));
+    }
+
+    /**
+     * Records a request.
+     *
+     * @param endpoint  the endpoint of the request
+     * @param latencyNs the time from sending the request to reading the response
+     * @param succeeded whether the response was a {@code 2xx} response
+     */
+    void record(String endpoint, long latencyNs, boolean succeeded) {
+        Samples samples = endpoints.get(endpoint);
+        samples.add(latencyNs);
+        if (!succeeded) {
+            samples.errors++;
+        }
+    }
+
+    /**
+     * Adds the requests of another report to this one.
+     *
+     * @param other the other report
+     */
+    void merge(LatencyReport other) {
+        other.endpoints.forEach((endpoint, samples) -> endpoints.get(endpoint).addAll(samples));
+    }
+
+    /**
+     * Formats the report as a table: requests, errors, throughput and the p50, p99 and p999
+     * latencies of each endpoint, then of all of them together.
+     *
+     * @param measured the time during which the requests were recorded
+     * @return the lines of the table
+     */
+    List<String> format(Duration measured) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-32s %10s %8s %10s %10s %10s %10s",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms"));
+        Samples total = new Samples();
+        endpoints.forEach((endpoint, samples) -> {
+            lines.add(line(endpoint, samples, measured));
+            total.addAll(samples);
+        });
+        lines.add(line("total", total, measured));
+        return lines;
+    }
+
+    private static String line(String endpoint, Samples samples, Duration measured) {
+        samples.sort();
+        return String.format("%-32s %10d %8d %10.1f %10.2f %10.2f %10.2f", endpoint, samples.size, samples.errors,
+                samples.size / (measured.toNanos() / 1e9),
+                samples.percentile(0.5) / 1e6, samples.percentile(0.99) / 1e6, samples.percentile(0.999) / 1e6);
+    }
+
+    private static class Samples {
+
+        private long[] latencies = new long[1024];
+        private int size;
+        private int errors;
+
+        void add(long latencyNs) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNs;
+        }
+
+        void addAll(Samples other) {
+            if (size + other.size > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.latencies, 0, latencies, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+
+        void sort() {
+            Arrays.sort(latencies, 0, size);
+        }
+
+        // Nearest-rank percentile of the sorted latencies
+        long percentile(double p) {
+            if (size == 0) {
+                return 0;
+            }
+            return latencies[(int) Math.ceil(p * size) - 1];
+        }
+    }
+}
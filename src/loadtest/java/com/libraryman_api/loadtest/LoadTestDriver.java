@@ -0,0 +1,284 @@
+package com.libraryman_api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives mixed traffic against the running application once the {@link LoadTestSeeder} has
+ * filled the database, and logs the throughput and latency of each endpoint.
+ *
+ * <p>{@code threads} driver threads share the seeded members, each member being used by a
+ * single thread. Each thread sends one request after the other, as a member picked at
+ * random, in the proportions of {@link Operation}: members log in, browse the catalog,
+ * borrow books, return them, and pay the fines of their overdue borrowings before
+ * returning those. Requests sent during the first {@code warmup} are not recorded; the
+ * test then runs for {@code duration}. When {@code exit-when-done} is set, the application
+ * stops once the results are logged.</p>
+ */
+@Component
+@Profile("loadtest")
+@Order(2)
+public class LoadTestDriver implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadTestDriver.class);
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * The requests of the traffic mix, with their share of the traffic in percent.
+     */
+    enum Operation {
+        LOGIN("POST /api/login", 5),
+        BROWSE("GET /api/books", 40),
+        VIEW_BOOK("GET /api/books/{id}", 20),
+        BORROW("POST /api/borrowings", 15),
+        RETURN("PUT /api/borrowings/{id}/return", 15),
+        PAY_FINE("PUT /api/borrowings/{id}/pay", 5);
+
+        private final String endpoint;
+        private final int weight;
+
+        Operation(String endpoint, int weight) {
+            this.endpoint = endpoint;
+            this.weight = weight;
+        }
+
+        static Operation pick(int percent) {
+            for (Operation operation : values()) {
+                percent -= operation.weight;
+                if (percent < 0) {
+                    return operation;
+                }
+            }
+            return BROWSE;
+        }
+    }
+
+    private final LoadTestSeeder seeder;
+    private final SmtpSink smtpSink;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+    private final Environment environment;
+    private final int threads;
+    private final Duration warmup;
+    private final Duration duration;
+    private final boolean exitWhenDone;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private String baseUrl;
+
+    /**
+     * Constructs a new {@code LoadTestDriver}.
+     *
+     * @param seeder       the seeder holding the seeded books and members
+     * @param smtpSink     the SMTP sink counting the emails sent during the test
+     * @param objectMapper the mapper reading and writing the request and response bodies
+     * @param context      the application context, closed once the test is done
+     * @param environment  the environment holding the port of the application
+     * @param threads      the number of driver threads
+     * @param warmup       the time during which requests are sent but not recorded
+     * @param duration     the time during which requests are recorded
+     * @param exitWhenDone whether the application stops once the results are logged
+     */
+    public LoadTestDriver(LoadTestSeeder seeder, SmtpSink smtpSink, ObjectMapper objectMapper,
+                          ConfigurableApplicationContext context, Environment environment,
+                          @Value("${libraryman.loadtest.threads:32}") int threads,
+                          @Value("${libraryman.loadtest.warmup:10s}") Duration warmup,
+                          @Value("${libraryman.loadtest.duration:60s}") Duration duration,
+                          @Value("${libraryman.loadtest.exit-when-done:true}") boolean exitWhenDone) {
+        this.seeder = seeder;
+        this.smtpSink = smtpSink;
+        this.objectMapper = objectMapper;
+        this.context = context;
+        this.environment = environment;
+        this.threads = threads;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        baseUrl = "http://localhost:" + environment.getRequiredProperty("local.server.port");
+        List<List<SimulatedMember>> usersByThread = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            usersByThread.add(new ArrayList<>());
+        }
+        List<LoadTestSeeder.SeededMember> members = seeder.getMembers();
+        for (int i = 0; i < members.size(); i++) {
+            usersByThread.get(i % threads).add(new SimulatedMember(members.get(i)));
+        }
+
+        LOGGER.info("Load test: {} threads, {} s of warm-up, then {} s measured", threads,
+                warmup.toSeconds(), duration.toSeconds());
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        long emailsBefore = smtpSink.getMessages();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        LatencyReport report = newReport();
+        try {
+            List<Future<LatencyReport>> results = new ArrayList<>();
+            for (List<SimulatedMember> users : usersByThread) {
+                results.add(executor.submit(() -> drive(users, measureFrom, measureUntil)));
+            }
+            for (Future<LatencyReport> result : results) {
+                report.merge(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        report.format(duration).forEach(LOGGER::info);
+        LOGGER.info("{} emails received by the SMTP sink", smtpSink.getMessages() - emailsBefore);
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private LatencyReport drive(List<SimulatedMember> users, long measureFrom, long measureUntil) {
+        LatencyReport report = newReport();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!users.isEmpty() && System.nanoTime() < measureUntil) {
+            SimulatedMember user = users.get(random.nextInt(users.size()));
+            Operation operation = user.token == null ? Operation.LOGIN : Operation.pick(random.nextInt(100));
+            if (operation == Operation.PAY_FINE && user.fined.isEmpty()) {
+                operation = Operation.BROWSE;
+            }
+            if (operation == Operation.RETURN && user.borrowed.isEmpty()) {
+                operation = Operation.BORROW;
+            }
+
+            long start = System.nanoTime();
+            boolean succeeded = send(user, operation, random);
+            if (start >= measureFrom) {
+                report.record(operation.endpoint, System.nanoTime() - start, succeeded);
+            }
+        }
+        return report;
+    }
+
+    private boolean send(SimulatedMember user, Operation operation, ThreadLocalRandom random) {
+        List<Integer> bookIds = seeder.getBookIds();
+        try {
+            switch (operation) {
+                case LOGIN -> {
+                    HttpResponse<String> response = exchange(null, "POST", "/api/login",
+                            Map.of("username", user.username, "password", LoadTestSeeder.PASSWORD));
+                    if (succeeded(response)) {
+                        user.token = objectMapper.readTree(response.body()).path("token").asText();
+                        return true;
+                    }
+                    return false;
+                }
+                case BROWSE -> {
+                    int page = random.nextInt(Math.max(1, bookIds.size() / PAGE_SIZE));
+                    return succeeded(exchange(user.token, "GET", "/api/books?page=" + page + "&size=" + PAGE_SIZE, null));
+                }
+                case VIEW_BOOK -> {
+                    return succeeded(exchange(user.token, "GET", "/api/books/" + bookIds.get(random.nextInt(bookIds.size())), null));
+                }
+                case BORROW -> {
+                    HttpResponse<String> response = exchange(user.token, "POST", "/api/borrowings", Map.of(
+                            "book", Map.of("bookId", bookIds.get(random.nextInt(bookIds.size()))),
+                            "member", Map.of("memberId", user.memberId)));
+                    if (succeeded(response)) {
+                        JsonNode borrowing = objectMapper.readTree(response.body());
+                        user.borrowed.add(borrowing.path("borrowingId").asInt());
+                        return true;
+                    }
+                    return false;
+                }
+                case RETURN -> {
+                    // Dropped whatever the outcome, so that a failing return is not retried forever
+                    int borrowingId = user.borrowed.poll();
+                    return succeeded(exchange(user.token, "PUT", "/api/borrowings/" + borrowingId + "/return", null));
+                }
+                case PAY_FINE -> {
+                    int borrowingId = user.fined.poll();
+                    if (succeeded(exchange(user.token, "PUT", "/api/borrowings/" + borrowingId + "/pay", null))) {
+                        user.borrowed.add(borrowingId);
+                        return true;
+                    }
+                    return false;
+                }
+                default -> throw new IllegalStateException("Unknown operation " + operation);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("{} failed", operation.endpoint, e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpResponse<String> exchange(String token, String method, String path, Object body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static boolean succeeded(HttpResponse<String> response) {
+        return response.statusCode() / 100 == 2;
+    }
+
+    private static LatencyReport newReport() {
+        return new LatencyReport(Arrays.stream(Operation.values()).map(operation -> operation.endpoint).toList());
+    }
+
+    // A seeded member, used by one driver thread only
+    private static class SimulatedMember {
+
+        private final int memberId;
+        private final String username;
+        private final Deque<Integer> borrowed = new ArrayDeque<>();
+        private final Deque<Integer> fined;
+        private String token;
+
+        SimulatedMember(LoadTestSeeder.SeededMember member) {
+            this.memberId = member.memberId();
+            this.username = member.username();
+            this.fined = new ArrayDeque<>(member.finedBorrowingIds());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.libraryman_api.loadtest;
+
+import com.libraryman_api.book.Book;
+import com.libraryman_api.book.BookRepository;
+import com.libraryman_api.borrowing.BorrowingRepository;
+import com.libraryman_api.borrowing.Borrowings;
+import com.libraryman_api.fine.FineRepository;
+import com.libraryman_api.fine.Fines;
+import com.libraryman_api.member.MemberRepository;
+import com.libraryman_api.member.Members;
+import com.libraryman_api.member.Role;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the empty load-test database with books, members and overdue borrowings.
+ *
+ * <p>Every member is a {@link Role#USER} named {@code member-<n>}, with the password
+ * {@link #PASSWORD}, hashed once for all of them. Each member starts with
+ * {@code fines-per-member} overdue borrowings carrying an unpaid fine, so that the driver
+ * can pay fines and return the books. Rows are saved {@code CHUNK} at a time, each chunk in
+ * its own transaction.</p>
+ */
+@Component
+@Profile("loadtest")
+@Order(1)
+public class LoadTestSeeder implements ApplicationRunner {
+
+    /**
+     * The password of every seeded member.
+     */
+    public static final String PASSWORD = "loadtest";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadTestSeeder.class);
+    private static final int CHUNK = 1000;
+    private static final String[] GENRES = {"Fiction", "Fantasy", "History", "Science"};
+
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final FineRepository fineRepository;
+    private final BorrowingRepository borrowingRepository;
+    private final org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final int books;
+    private final int members;
+    private final int finesPerMember;
+
+    private final List<Integer> bookIds = new ArrayList<>();
+    private final List<SeededMember> seededMembers = new ArrayList<>();
+
+    /**
+     * Constructs a new {@code LoadTestSeeder}.
+     *
+     * @param bookRepository      the repository the books are saved with
+     * @param memberRepository    the repository the members are saved with
+     * @param fineRepository      the repository the fines are saved with
+     * @param borrowingRepository the repository the borrowings are saved with
+     * @param passwordEncoder     the encoder hashing the password of the members
+     * @param transactionTemplate the template running each chunk in a transaction
+     * @param books               the number of books
+     * @param members             the number of members
+     * @param finesPerMember      the number of overdue borrowings with an unpaid fine per member
+     */
+    public LoadTestSeeder(BookRepository bookRepository, MemberRepository memberRepository,
+                          FineRepository fineRepository, BorrowingRepository borrowingRepository,
+                          org.springframework.security.crypto.password.PasswordEncoder passwordEncoder,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${libraryman.loadtest.books:2000}") int books,
+                          @Value("${libraryman.loadtest.members:500}") int members,
+                          @Value("${libraryman.loadtest.fines-per-member:2}") int finesPerMember) {
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.fineRepository = fineRepository;
+        this.borrowingRepository = borrowingRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.books = books;
+        this.members = members;
+        this.finesPerMember = finesPerMember;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        List<Book> savedBooks = new ArrayList<>(books);
+        for (int from = 0; from < books; from += CHUNK) {
+            List<Book> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(books, from + CHUNK); i++) {
+                // Enough copies that checkouts are rarely refused for lack of stock
+                chunk.add(new Book("Load test book " + i, "Author " + i % 100, "loadtest-" + i, "Publisher",
+                        1950 + i % 70, GENRES[i % GENRES.length], 1_000_000));
+            }
+            savedBooks.addAll(transactionTemplate.execute(status -> bookRepository.saveAll(chunk)));
+        }
+        savedBooks.forEach(book -> bookIds.add(book.getBookId()));
+
+        String password = passwordEncoder.encode(PASSWORD);
+        long now = System.currentTimeMillis();
+        Date borrowDate = new Date(now - TimeUnit.DAYS.toMillis(20));
+        Date dueDate = new Date(now - TimeUnit.DAYS.toMillis(5));
+        for (int from = 0; from < members; from += CHUNK) {
+            int first = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Members> chunk = new ArrayList<>();
+                for (int i = first; i < Math.min(members, first + CHUNK); i++) {
+                    Members member = new Members("Load test member " + i, "member-" + i + "@loadtest.local",
+                            password, Role.USER, new Date(now));
+                    member.setUsername("member-" + i);
+                    chunk.add(member);
+                }
+                List<Borrowings> borrowings = new ArrayList<>();
+                for (Members member : memberRepository.saveAll(chunk)) {
+                    SeededMember seeded = new SeededMember(member.getMemberId(), member.getUsername(), new ArrayList<>());
+                    for (int i = 0; i < finesPerMember; i++) {
+                        Borrowings borrowing = new Borrowings(savedBooks.get((seededMembers.size() + i) % savedBooks.size()),
+                                member, borrowDate, dueDate, null);
+                        borrowing.setFine(fineRepository.save(new Fines(BigDecimal.valueOf(50), false)));
+                        borrowings.add(borrowing);
+                    }
+                    seededMembers.add(seeded);
+                }
+                List<Borrowings> saved = borrowingRepository.saveAll(borrowings);
+                for (int i = 0; i < saved.size(); i++) {
+                    seededMembers.get(seededMembers.size() - chunk.size() + i / Math.max(1, finesPerMember))
+                            .finedBorrowingIds().add(saved.get(i).getBorrowingId());
+                }
+            });
+        }
+        LOGGER.info("Seeded {} books, {} members and {} overdue borrowings in {} ms", books, members,
+                members * finesPerMember, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Returns the IDs of the seeded books.
+     *
+     * @return the book IDs
+     */
+    public List<Integer> getBookIds() {
+        return bookIds;
+    }
+
+    /**
+     * Returns the seeded members.
+     *
+     * @return the members
+     */
+    public List<SeededMember> getMembers() {
+        return seededMembers;
+    }
+
+    /**
+     * A seeded member.
+     *
+     * @param memberId           the ID of the member
+     * @param username           the username the member logs in with
+     * @param finedBorrowingIds  the IDs of the overdue borrowings of the member, whose fine is unpaid
+     */
+    public record SeededMember(int memberId, String username, List<Integer> finedBorrowingIds) {
+    }
+}
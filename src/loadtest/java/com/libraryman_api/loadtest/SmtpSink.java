@@ -0,0 +1,145 @@
+package com.libraryman_api.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local SMTP server that accepts every message and discards it, standing in for the mail
+ * server during a load test.
+ *
+ * <p>It speaks enough SMTP for Jakarta Mail, without authentication or TLS, on
+ * {@code spring.mail.port} of the loopback interface. Each connection is served on its own
+ * thread, so the SMTP connection pool of the application behaves as it would against a real
+ * server. The number of messages received is reported with the load-test results.</p>
+ */
+@Component
+@Profile("loadtest")
+public class SmtpSink implements SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmtpSink.class);
+
+    private final int port;
+    private final AtomicLong messages = new AtomicLong();
+    private volatile ServerSocket serverSocket;
+    private ExecutorService connections;
+
+    /**
+     * Constructs a new {@code SmtpSink}.
+     *
+     * @param port the port to listen on, the one the application sends mail to
+     */
+    public SmtpSink(@Value("${spring.mail.port}") int port) {
+        this.port = port;
+    }
+
+    @Override
+    public void start() {
+        try {
+            serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to listen for SMTP on port " + port, e);
+        }
+        connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "smtp-sink-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread acceptor = new Thread(this::accept, "smtp-sink");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOGGER.info("SMTP sink listening on port {}", port);
+    }
+
+    @Override
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close the SMTP sink", e);
+        }
+        connections.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        ServerSocket socket = serverSocket;
+        return socket != null && !socket.isClosed();
+    }
+
+    /**
+     * Returns the number of messages received since the start.
+     *
+     * @return the message count
+     */
+    public long getMessages() {
+        return messages.get();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // Thrown by accept() once the sink is stopped
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1)) {
+            reply(out, "220 localhost SMTP sink");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String verb = line.length() < 4 ? line : line.substring(0, 4);
+                switch (verb.toUpperCase(Locale.ROOT)) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250 8BITMIME");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // The content is discarded
+                        }
+                        messages.incrementAndGet();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    // HELO, MAIL, RCPT, RSET and NOOP
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("SMTP sink connection failed", e);
+        }
+    }
+
+    private static void reply(Writer out, String reply) throws IOException {
+        out.write(reply);
+        out.write("\r\n");
+        out.flush();
+    }
+}
@@ -11,7 +11,7 @@ public class Book {
             generator = "book_id_generator")
     @SequenceGenerator(name = "book_id_generator",
             sequenceName = "book_id_sequence",
-            allocationSize = 1)
+            allocationSize = 50)
     @Column(name = "book_id")
     private int bookId;
 
@@ -33,6 +33,11 @@ public class Book {
     @Column(name = "copies_available", nullable = false)
     private int copiesAvailable;
 
+    // Incremented by Hibernate on every update, and by the stock updates of BookRepository; the entity tag of the book
+    @Version
+    @Column(nullable = false)
+    private int version;
+
     public Book() {
     }
 
@@ -110,6 +115,10 @@ public class Book {
         this.copiesAvailable = copiesAvailable;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     @Override
     public String toString() {
         return "Books{" +
@@ -1,21 +1,30 @@
 package com.libraryman_api.book;
 
 import com.libraryman_api.exception.ResourceNotFoundException;
+import com.libraryman_api.pagination.KeysetSlice;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.List;
 
 /**
  * REST controller for managing books in the LibraryMan application.
  * This controller provides endpoints for performing CRUD operations on books,
- * including retrieving all books, getting a book by its ID, adding a new book,
- * updating an existing book, and deleting a book.
+ * including retrieving all books, exporting and searching the catalog, getting a book by its ID,
+ * adding a new book, importing books in bulk, updating an existing book, and deleting a book.
  */
 @RestController
 @RequestMapping("/api/books")
@@ -24,19 +33,42 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookImportJobs bookImportJobs;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     /**
      * Retrieves a paginated and sorted list of all books in the library.
      *
      * @param pageable contains pagination information (page number, size, and sorting).
      * @param sortBy   (optional) the field by which to sort the results.
      * @param sortDir  (optional) the direction of sorting (asc or desc). Defaults to ascending.
-     * @return a {@link Page} of {@link BookDto} objects representing the books in the library.
-     * The results are sorted by title by default and limited to 5 books per page.
+     * @param cursor   (optional) switches to keyset pagination: empty for the first slice, then the
+     *                 {@code nextCursor} of the previous response. The page number is then ignored and
+     *                 no total count is computed.
+     * @param fields   (optional) a sparse fieldset, such as {@code fields=title,author}: only these fields are
+     *                 selected and returned for each row.
+     * @param request  the current request; its {@code If-None-Match} header is checked against the {@link CatalogVersion}.
+     * @return a {@link Page}, or a {@link KeysetSlice} when a cursor is given, of {@link BookDto} objects representing the books in the library.
+     * The results are sorted by title by default and limited to 5 books per page. Nothing is returned, with
+     * {@code 304 Not Modified}, when the catalog has not changed since the client's copy.
      */
     @GetMapping
-    public Page<BookDto> getAllBooks(@PageableDefault(page = 0, size = 5, sort = "title") Pageable pageable,
-                                     @RequestParam(required = false) String sortBy,
-                                     @RequestParam(required = false) String sortDir) {
+    public Slice<?> getAllBooks(@PageableDefault(page = 0, size = 5, sort = "title") Pageable pageable,
+                                @RequestParam(required = false) String sortBy,
+                                @RequestParam(required = false) String sortDir,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(required = false) List<String> fields,
+                                WebRequest request) {
+        // Read before the books, so that the tag is never newer than the page
+        if (request.checkNotModified(catalogVersion.etag())) {
+            return null;
+        }
 
         // Adjust the pageable based on dynamic sorting parameters
         if (sortBy != null && !sortBy.isEmpty()) {
@@ -48,20 +80,63 @@ public class BookController {
 
             pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(direction, sortBy));
         }
+        if (fields != null) {
+            return bookService.getAllBooks(pageable, cursor, fields);
+        }
+        if (cursor != null) {
+            return bookService.getAllBooks(pageable, cursor);
+        }
         return bookService.getAllBooks(pageable);
     }
 
+    /**
+     * Exports the whole catalog as a download, streamed as it is read.
+     *
+     * @param format         (optional) the format of the export, {@code ndjson} (default) or {@code csv}.
+     * @param fields         (optional) the exported fields, such as {@code fields=isbn,title}; all fields by default.
+     * @param acceptEncoding the encodings accepted by the client; the export is compressed with gzip if it is one of them.
+     * @return a {@link ResponseEntity} streaming the books, in book ID order.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(required = false) List<String> fields,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return bookService.exportBooks(format, fields, acceptEncoding);
+    }
+
+    /**
+     * Searches the catalog by title, author, genre and publisher.
+     *
+     * @param query    the free-text query; every word must match a word of the book, either
+     *                 completely or as a prefix.
+     * @param pageable contains pagination information (page number and size).
+     * @param request  the current request; its {@code If-None-Match} header is checked against the {@link CatalogVersion}.
+     * @return a {@link Page} of {@link BookDto} objects ordered by relevance, limited to 5 books per page by default,
+     * or nothing, with {@code 304 Not Modified}, when the catalog has not changed since the client's copy.
+     */
+    @GetMapping("/search")
+    public Page<BookDto> searchBooks(@RequestParam("q") String query,
+                                     @PageableDefault(page = 0, size = 5) Pageable pageable,
+                                     WebRequest request) {
+        if (request.checkNotModified(catalogVersion.etag())) {
+            return null;
+        }
+        return bookService.searchBooks(query, pageable);
+    }
+
     /**
      * Retrieves a book by its ID.
      *
      * @param id the ID of the book to retrieve.
-     * @return a {@link ResponseEntity} containing the {@link Book} object, if found.
+     * @return a {@link ResponseEntity} containing the {@link Book} object, if found, with the version of the book as
+     * its {@code ETag}. A request whose {@code If-None-Match} holds this tag is answered {@code 304 Not Modified},
+     * without a body.
      * @throws ResourceNotFoundException if the book with the specified ID is not found.
      */
     @GetMapping("/{id}")
     public ResponseEntity<BookDto> getBookById(@PathVariable int id) {
         return bookService.getBookById(id)
-                .map(ResponseEntity::ok)
+                .map(book -> ResponseEntity.ok().eTag(Integer.toString(book.getVersion())).body(book))
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
     }
 
@@ -77,6 +152,50 @@ public class BookController {
         return bookService.addBook(bookDto);
     }
 
+    /**
+     * Imports books in bulk, inserting new ISBNs and updating the books whose ISBN is already known.
+     *
+     * <p>The body is streamed, so imports of any size can be sent. The response is sent once the
+     * whole body is imported; meanwhile the progress of the job can be followed with
+     * {@link #getImportJobs()}.</p>
+     *
+     * @param contentType {@code text/csv}, with a header naming the columns, or {@code application/x-ndjson},
+     *                    with one JSON book per line.
+     * @param body        the stream of books to import.
+     * @return the finished {@link BookImportJob}, with the counts of inserted, updated and rejected rows
+     * and the reason each row was rejected.
+     */
+    @PostMapping(value = "/import", consumes = {BookImportService.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
+    public BookImportJob importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) {
+        return bookImportService.importBooks(body, contentType);
+    }
+
+    /**
+     * Retrieves the recent import jobs, including the running ones.
+     *
+     * @return the {@link BookImportJob} objects, most recent first.
+     */
+    @GetMapping("/import")
+    @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
+    public List<BookImportJob> getImportJobs() {
+        return bookImportJobs.list();
+    }
+
+    /**
+     * Retrieves an import job by its ID.
+     *
+     * @param jobId the ID of the job, returned when the import was started.
+     * @return the {@link BookImportJob}, with its progress or outcome.
+     * @throws ResourceNotFoundException if the job is unknown or was forgotten.
+     */
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
+    public BookImportJob getImportJob(@PathVariable String jobId) {
+        return bookImportJobs.get(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job not found"));
+    }
+
     /**
      * Updates an existing book in the library.
      *
@@ -1,5 +1,7 @@
 package com.libraryman_api.book;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class BookDto {
 
 
@@ -11,6 +13,8 @@ public class BookDto {
     private int publishedYear;
     private String genre;
     private int copiesAvailable;
+    @JsonIgnore
+    private int version;
 
     public BookDto(int bookId, String title, String author, String isbn, String publisher, int publishedYear, String genre, int copiesAvailable) {
         this.bookId = bookId;
@@ -90,6 +94,19 @@ public class BookDto {
         this.copiesAvailable = copiesAvailable;
     }
 
+    /**
+     * Returns the version of the row the DTO was read from, sent as its entity tag rather than in the body.
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "BookDto{" +
@@ -0,0 +1,152 @@
+package com.libraryman_api.book;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress and outcome of a catalog import started with {@code POST /api/books/import}.
+ *
+ * <p>The job is updated by the thread reading the import while other requests read its
+ * progress, so every counter is published through a volatile field. Rows are numbered from 1
+ * in the order they were read; the CSV header and blank lines are not counted. Only the first
+ * {@code max-errors} rejected rows are described in {@link #getErrors()}, the others are only
+ * counted.</p>
+ */
+public class BookImportJob {
+
+    /**
+     * The state of an import job.
+     */
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * A rejected row.
+     *
+     * @param row     the number of the row
+     * @param message the reason it was rejected
+     */
+    public record RowError(long row, String message) {
+    }
+
+    private final String jobId = UUID.randomUUID().toString();
+    private final String format;
+    private final Instant startedAt = Instant.now();
+    private final int maxErrors;
+    private final List<RowError> errors = new ArrayList<>();
+    private volatile Status status = Status.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+    private volatile long rowsRead;
+    private volatile long inserted;
+    private volatile long updated;
+    private volatile long rejected;
+
+    BookImportJob(String format, int maxErrors) {
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Returns the reason the import stopped before the end of the input, if it did.
+     *
+     * @return the failure message, or {@code null}
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the rate the rows have been read at so far, or over the whole import once it is finished.
+     *
+     * @return the number of rows read per second
+     */
+    public long getRowsPerSecond() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(Duration.between(startedAt, end).toMillis(), 1);
+        return rowsRead * 1000 / millis;
+    }
+
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+
+    void rowRead() {
+        rowsRead++;
+    }
+
+    void written(int insertedRows, int updatedRows) {
+        inserted += insertedRows;
+        updated += updatedRows;
+    }
+
+    void reject(long row, String message) {
+        reject(row, 1, message);
+    }
+
+    void reject(long row, int rows, String message) {
+        rejected += rows;
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(new RowError(row, message));
+            }
+        }
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(String message) {
+        failure = message;
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+}
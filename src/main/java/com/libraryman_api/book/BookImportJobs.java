@@ -0,0 +1,78 @@
+package com.libraryman_api.book;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Registry of the recent catalog imports, so that their progress and rejected rows can be read
+ * while they run and after they finish.
+ *
+ * <p>Jobs are kept in memory. Once more than {@code retained-jobs} jobs are known, the oldest
+ * finished jobs are forgotten; running jobs are always kept.</p>
+ */
+@Component
+public class BookImportJobs {
+
+    private final int retainedJobs;
+    private final int maxErrors;
+    private final Map<String, BookImportJob> jobs = new LinkedHashMap<>();
+
+    /**
+     * Constructs a new {@code BookImportJobs}.
+     *
+     * @param retainedJobs the number of jobs kept
+     * @param maxErrors    the number of rejected rows described by each job
+     */
+    public BookImportJobs(@Value("${libraryman.books.import.retained-jobs:50}") int retainedJobs,
+                          @Value("${libraryman.books.import.max-errors:1000}") int maxErrors) {
+        this.retainedJobs = retainedJobs;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Registers a new running job.
+     *
+     * @param format the format of the imported rows
+     * @return the job
+     */
+    public synchronized BookImportJob start(String format) {
+        BookImportJob job = new BookImportJob(format, maxErrors);
+        jobs.put(job.getJobId(), job);
+        Iterator<BookImportJob> oldest = jobs.values().iterator();
+        while (jobs.size() > retainedJobs && oldest.hasNext()) {
+            if (oldest.next().isFinished()) {
+                oldest.remove();
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Returns a job by its ID.
+     *
+     * @param jobId the ID of the job
+     * @return the job, or {@code Optional.empty()} if it is unknown or was forgotten
+     */
+    public synchronized Optional<BookImportJob> get(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Returns the known jobs, most recent first.
+     *
+     * @return the jobs
+     */
+    public synchronized List<BookImportJob> list() {
+        List<BookImportJob> recent = new ArrayList<>(jobs.values());
+        Collections.reverse(recent);
+        return recent;
+    }
+}
@@ -0,0 +1,505 @@
+package com.libraryman_api.book;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.libraryman_api.exception.InvalidImportException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Imports books in bulk from a CSV or newline-delimited JSON (NDJSON) stream.
+ *
+ * <p>The input is read one row at a time, so an import of any size holds a single chunk of
+ * {@code chunk-size} rows in memory. Each row is validated on its own; a rejected row is
+ * reported in its {@link BookImportJob} and the import goes on. Books are upserted by ISBN:
+ * each chunk looks up the books it already knows with one query, updates those and inserts
+ * the others in a single transaction, written with the JDBC batching configured for
+ * Hibernate. When a row repeats an ISBN, each value it holds replaces the one of the earlier
+ * row, and the values it lacks are taken from the earlier row. A known book is only
+ * updated with the values a row holds: a column missing from the CSV header, an empty CSV
+ * value, or a field missing or {@code null} in an NDJSON row leaves its value unchanged, so a
+ * partial import never clears the other columns.</p>
+ *
+ * <p>The {@code copiesAvailable} column only sets the stock of new books: the stock of a known
+ * book is changed by checkouts and returns, which an import must not overwrite. A checkout
+ * still bumps the version of its book, so a chunk that updates a book checked out meanwhile
+ * fails with an optimistic locking error; it is then written again from a fresh read, up to
+ * three times, before its rows are rejected.</p>
+ *
+ * <p>The {@link BookSearchIndex} and the {@link CatalogVersion} are updated after each chunk
+ * commits, but the cached books and listing pages are only evicted once, when the import ends.</p>
+ */
+@Service
+public class BookImportService {
+
+    /**
+     * The media type of CSV imports.
+     */
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    /**
+     * The columns of a CSV import, named like the properties of {@link BookDto}.
+     * The {@code title} and {@code isbn} columns are required. The others default to empty or zero
+     * for new books, and are left unchanged on known books when they are missing. The
+     * {@code copiesAvailable} column is only read for new books.
+     */
+    public static final List<String> COLUMNS = List.of("title", "author", "isbn", "publisher", "publishedYear", "genre", "copiesAvailable");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookImportService.class);
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+    private static final int MAX_LENGTH = 255;
+    private static final int VERSION_CONFLICT_ATTEMPTS = 3;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private final BookRepository bookRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookPageCache bookPageCache;
+    private final CatalogVersion catalogVersion;
+    private final Cache booksCache;
+    private final BookImportJobs bookImportJobs;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader bookReader;
+    private final int chunkSize;
+    private final Counter insertedRows;
+    private final Counter updatedRows;
+    private final Counter rejectedRows;
+
+    /**
+     * Constructs a new {@code BookImportService}.
+     *
+     * @param bookRepository      the repository the books are written with
+     * @param bookSearchIndex     the full-text index kept in sync with the catalog
+     * @param bookPageCache       the cache of listing pages, evicted once the import ends
+     * @param catalogVersion      the version of the catalog, moved forward by each chunk
+     * @param cacheManager        the cache manager providing the {@code books} region, evicted once the import ends
+     * @param bookImportJobs      the registry of import jobs
+     * @param transactionTemplate the template running each chunk in a transaction
+     * @param objectMapper        the mapper the NDJSON rows are read with
+     * @param meterRegistry       the registry the import metrics are published to
+     * @param chunkSize           the number of rows written in one transaction
+     */
+    public BookImportService(BookRepository bookRepository,
+                             BookSearchIndex bookSearchIndex,
+                             BookPageCache bookPageCache,
+                             CatalogVersion catalogVersion,
+                             CacheManager cacheManager,
+                             BookImportJobs bookImportJobs,
+                             TransactionTemplate transactionTemplate,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${libraryman.books.import.chunk-size:1000}") int chunkSize) {
+        this.bookRepository = bookRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookPageCache = bookPageCache;
+        this.catalogVersion = catalogVersion;
+        this.booksCache = cacheManager.getCache("books");
+        this.bookImportJobs = bookImportJobs;
+        this.transactionTemplate = transactionTemplate;
+        this.bookReader = objectMapper.readerFor(BookDto.class);
+        this.chunkSize = chunkSize;
+        this.insertedRows = rowCounter(meterRegistry, "inserted");
+        this.updatedRows = rowCounter(meterRegistry, "updated");
+        this.rejectedRows = rowCounter(meterRegistry, "rejected");
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("libraryman.books.import.rows")
+                .description("Rows read by catalog imports")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Imports the books of a CSV or NDJSON stream, reading it until its end.
+     *
+     * <p>The job is registered before the first row is read, so its progress can be followed
+     * with {@link BookImportJobs} while the import runs.</p>
+     *
+     * @param input       the stream of rows
+     * @param contentType {@code text/csv}, whose first record names the columns, or {@code application/x-ndjson},
+     *                    with one JSON object per line; the charset defaults to UTF-8
+     * @return the finished job
+     * @throws InvalidImportException if the CSV header is invalid
+     */
+    public BookImportJob importBooks(InputStream input, MediaType contentType) {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, charset));
+        boolean csv = contentType.isCompatibleWith(TEXT_CSV);
+        BookImportJob job = bookImportJobs.start(csv ? "csv" : "ndjson");
+        long start = System.nanoTime();
+        try {
+            importRows(job, csv ? csvRows(new CsvReader(reader, MAX_RECORD_LENGTH)) : ndjsonRows(reader));
+            job.complete();
+        } catch (InvalidImportException ex) {
+            job.fail(ex.getMessage());
+            throw ex;
+        } catch (IOException ex) {
+            job.fail("The import stopped after row " + job.getRowsRead() + ": " + ex.getMessage());
+        } finally {
+            // Rows written by earlier chunks stay imported, even when the import fails
+            booksCache.clear();
+            bookPageCache.evictAll();
+            // Pages listed during the import were cached under the tags of the chunks; none matches after this
+            catalogVersion.changed();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOGGER.info("Imported {} of {} rows ({} inserted, {} updated, {} rejected) in {} s ({} per second), job {}",
+                job.getInserted() + job.getUpdated(), job.getRowsRead(), job.getInserted(), job.getUpdated(),
+                job.getRejected(), String.format("%.1f", seconds), job.getRowsPerSecond(), job.getJobId());
+        return job;
+    }
+
+    private void importRows(BookImportJob job, RowReader rows) throws IOException {
+        // Keyed by ISBN, ignoring case as the unique index of MySQL does
+        Map<String, Row> chunk = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        long firstRow = 0;
+        int repeats = 0;
+        try {
+            while (true) {
+                Row row;
+                try {
+                    row = rows.read();
+                } catch (IllegalArgumentException ex) {
+                    job.rowRead();
+                    job.reject(job.getRowsRead(), ex.getMessage());
+                    rejectedRows.increment();
+                    continue;
+                }
+                if (row == null) {
+                    return;
+                }
+                job.rowRead();
+                String error = validate(row.book());
+                if (error != null) {
+                    job.reject(job.getRowsRead(), error);
+                    rejectedRows.increment();
+                    continue;
+                }
+                if (chunk.isEmpty()) {
+                    firstRow = job.getRowsRead();
+                }
+                Row earlier = chunk.get(row.book().getIsbn());
+                if (earlier != null) {
+                    row = merge(earlier, row);
+                    repeats++;
+                }
+                chunk.put(row.book().getIsbn(), row);
+                if (chunk.size() + repeats >= chunkSize) {
+                    write(job, chunk, repeats, firstRow);
+                    chunk.clear();
+                    repeats = 0;
+                }
+            }
+        } finally {
+            // The rows read before the end, or before the input broke off
+            if (!chunk.isEmpty()) {
+                write(job, chunk, repeats, firstRow);
+            }
+        }
+    }
+
+    private void write(BookImportJob job, Map<String, Row> chunk, int repeats, long firstRow) {
+        Upserts upserts = null;
+        try {
+            for (int attempt = 1; upserts == null; attempt++) {
+                try {
+                    upserts = transactionTemplate.execute(status -> upsert(chunk));
+                } catch (OptimisticLockingFailureException ex) {
+                    // A checkout changed one of the known books after the chunk read it
+                    if (attempt == VERSION_CONFLICT_ATTEMPTS) {
+                        throw ex;
+                    }
+                    LOGGER.debug("Writing rows {} to {} again after a version conflict", firstRow, job.getRowsRead());
+                }
+            }
+        } catch (DataAccessException | TransactionException ex) {
+            int rows = chunk.size() + repeats;
+            job.reject(firstRow, rows, "Rows " + firstRow + " to " + job.getRowsRead() + " were not imported: "
+                    + NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+            rejectedRows.increment(rows);
+            return;
+        }
+        catalogVersion.changed();
+        for (Book book : upserts.inserted()) {
+            bookSearchIndex.add(book);
+        }
+        for (Update update : upserts.updated()) {
+            bookSearchIndex.replace(update.previous(), update.current());
+        }
+        // A repeated ISBN updates the book of its previous row
+        int updated = upserts.updated().size() + repeats;
+        job.written(upserts.inserted().size(), updated);
+        insertedRows.increment(upserts.inserted().size());
+        updatedRows.increment(updated);
+    }
+
+    private Upserts upsert(Map<String, Row> chunk) {
+        Map<String, Book> existing = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Book book : bookRepository.findByIsbnIn(chunk.keySet())) {
+            existing.put(book.getIsbn(), book);
+        }
+        List<Book> inserted = new ArrayList<>();
+        List<Update> updated = new ArrayList<>();
+        for (Row row : chunk.values()) {
+            Book book = existing.get(row.book().getIsbn());
+            if (book == null) {
+                book = new Book();
+                copy(row.book(), book);
+                inserted.add(book);
+            } else {
+                Book previous = new Book(book.getTitle(), book.getAuthor(), book.getIsbn(), book.getPublisher(),
+                        book.getPublishedYear(), book.getGenre(), book.getCopiesAvailable());
+                previous.setBookId(book.getBookId());
+                // Managed books are written by the flush at commit; unchanged ones are not updated
+                update(row, book);
+                updated.add(new Update(previous, book));
+            }
+        }
+        bookRepository.saveAll(inserted);
+        return new Upserts(inserted, updated);
+    }
+
+    private static void copy(BookDto row, Book book) {
+        book.setTitle(row.getTitle());
+        book.setAuthor(row.getAuthor());
+        book.setIsbn(row.getIsbn());
+        book.setPublisher(row.getPublisher());
+        book.setPublishedYear(row.getPublishedYear());
+        book.setGenre(row.getGenre());
+        book.setCopiesAvailable(row.getCopiesAvailable());
+    }
+
+    // Copies the values the row holds, leaving the others as they are
+    private static void update(Row row, Book book) {
+        BookDto values = row.book();
+        Set<String> fields = row.fields();
+        book.setTitle(values.getTitle());
+        if (fields.contains("author")) {
+            book.setAuthor(values.getAuthor());
+        }
+        if (fields.contains("publisher")) {
+            book.setPublisher(values.getPublisher());
+        }
+        if (fields.contains("publishedYear")) {
+            book.setPublishedYear(values.getPublishedYear());
+        }
+        if (fields.contains("genre")) {
+            book.setGenre(values.getGenre());
+        }
+    }
+
+    // The values of the later row, completed with those only the earlier row holds
+    private static Row merge(Row earlier, Row later) {
+        BookDto values = later.book();
+        Set<String> fields = new HashSet<>(later.fields());
+        for (String column : earlier.fields()) {
+            if (!fields.add(column)) {
+                continue;
+            }
+            switch (column) {
+                case "author" -> values.setAuthor(earlier.book().getAuthor());
+                case "publisher" -> values.setPublisher(earlier.book().getPublisher());
+                case "publishedYear" -> values.setPublishedYear(earlier.book().getPublishedYear());
+                case "genre" -> values.setGenre(earlier.book().getGenre());
+                case "copiesAvailable" -> values.setCopiesAvailable(earlier.book().getCopiesAvailable());
+                default -> {
+                    // The title and ISBN are required on every row
+                }
+            }
+        }
+        return new Row(values, fields);
+    }
+
+    /**
+     * Checks a row against the constraints of the {@code book} table.
+     *
+     * @param book the row
+     * @return the reason the row is invalid, or {@code null} if it is valid
+     */
+    private static String validate(BookDto book) {
+        if (book.getTitle() == null || book.getTitle().isBlank()) {
+            return "The title is required.";
+        }
+        if (book.getIsbn() == null || book.getIsbn().isBlank()) {
+            return "The ISBN is required.";
+        }
+        if (book.getCopiesAvailable() < 0) {
+            return "The number of copies available cannot be negative.";
+        }
+        for (String value : new String[]{book.getTitle(), book.getAuthor(), book.getIsbn(), book.getPublisher(), book.getGenre()}) {
+            if (value != null && value.length() > MAX_LENGTH) {
+                return "A value is longer than " + MAX_LENGTH + " characters: " + value.substring(0, 20) + "...";
+            }
+        }
+        return null;
+    }
+
+    private static RowReader csvRows(CsvReader csv) throws IOException {
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new InvalidImportException("The CSV import is empty; its first line must name the columns.");
+        }
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim();
+            String name = COLUMNS.stream().filter(column::equalsIgnoreCase).findFirst()
+                    .orElseThrow(() -> new InvalidImportException("Unknown CSV column '" + column + "'; the columns are " + COLUMNS + "."));
+            if (indexes.put(name, i) != null) {
+                throw new InvalidImportException("The CSV column '" + name + "' is repeated.");
+            }
+        }
+        if (!indexes.containsKey("title") || !indexes.containsKey("isbn")) {
+            throw new InvalidImportException("The CSV columns 'title' and 'isbn' are required.");
+        }
+        return () -> {
+            List<String> record = csv.next();
+            if (record == null) {
+                return null;
+            }
+            if (record.size() != header.size()) {
+                throw new IllegalArgumentException("The row has " + record.size() + " values instead of " + header.size() + ".");
+            }
+            Set<String> fields = new HashSet<>();
+            indexes.forEach((column, index) -> {
+                if (!record.get(index).isBlank()) {
+                    fields.add(column);
+                }
+            });
+            BookDto book = new BookDto();
+            book.setTitle(text(record, indexes.get("title")));
+            book.setAuthor(text(record, indexes.get("author")));
+            book.setIsbn(text(record, indexes.get("isbn")));
+            book.setPublisher(text(record, indexes.get("publisher")));
+            book.setPublishedYear(number(record, indexes.get("publishedYear"), "publishedYear"));
+            book.setGenre(text(record, indexes.get("genre")));
+            book.setCopiesAvailable(number(record, indexes.get("copiesAvailable"), "copiesAvailable"));
+            return new Row(book, fields);
+        };
+    }
+
+    private static String text(List<String> record, Integer index) {
+        if (index == null) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static int number(List<String> record, Integer index, String column) {
+        String value = text(record, index);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("The " + column + " value '" + value + "' is not a whole number.");
+        }
+    }
+
+    private RowReader ndjsonRows(BufferedReader reader) {
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            try {
+                JsonNode node = bookReader.readTree(line);
+                if (node == null || !node.isObject()) {
+                    throw new IllegalArgumentException("The row is not a JSON object.");
+                }
+                BookDto book = bookReader.treeToValue(node, BookDto.class);
+                book.setTitle(trim(book.getTitle()));
+                book.setIsbn(trim(book.getIsbn()));
+                Set<String> fields = new HashSet<>();
+                for (String column : COLUMNS) {
+                    if (node.hasNonNull(column)) {
+                        fields.add(column);
+                    }
+                }
+                return new Row(book, fields);
+            } catch (JsonProcessingException ex) {
+                throw new IllegalArgumentException("The row is not valid JSON: " + ex.getOriginalMessage());
+            }
+        };
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    /**
+     * Source of import rows.
+     */
+    @FunctionalInterface
+    private interface RowReader {
+
+        /**
+         * Reads the next row.
+         *
+         * @return the row, or {@code null} at the end of the input
+         * @throws IOException              if the input cannot be read
+         * @throws IllegalArgumentException if the row cannot be parsed; the next call reads the following row
+         */
+        Row read() throws IOException;
+    }
+
+    /**
+     * A row of the import.
+     *
+     * @param book   the values of the row, empty or zero where the row holds none
+     * @param fields the columns the row holds a value for
+     */
+    private record Row(BookDto book, Set<String> fields) {
+    }
+
+    /**
+     * The books written by one chunk.
+     *
+     * @param inserted the new books
+     * @param updated  the updated books
+     */
+    private record Upserts(List<Book> inserted, List<Update> updated) {
+    }
+
+    /**
+     * An updated book.
+     *
+     * @param previous the book as it was indexed before the update
+     * @param current  the updated book
+     */
+    private record Update(Book previous, Book current) {
+    }
+}
@@ -0,0 +1,179 @@
+package com.libraryman_api.book;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of the pages returned by {@link BookService#getAllBooks(Pageable)}.
+ *
+ * <p>Pages live in their own cache region, {@value #CACHE_NAME}, keyed by page number,
+ * size and sort, so they never share keys with the single-book entries of the
+ * {@code books} region. For each cached page the IDs of the books it contains are
+ * remembered, which allows targeted invalidation:</p>
+ * <ul>
+ *     <li>a changed book drops the pages containing it, and the pages sorted by one of
+ *     the properties that changed, since the book may have moved into them;</li>
+ *     <li>an added or deleted book shifts every page and drops them all.</li>
+ * </ul>
+ *
+ * <p>A page loaded while an invalidation runs is returned but not cached, so an
+ * outdated page can never be stored after the invalidation that should have dropped it.
+ * Invalidations made inside a transaction are repeated after it completes, for pages
+ * read before the change was committed.</p>
+ */
+@Component
+public class BookPageCache {
+
+    /**
+     * The name of the cache region holding the pages.
+     */
+    public static final String CACHE_NAME = "bookPages";
+
+    private final Cache cache;
+    private final int maxPages;
+    private final Map<BookPageKey, Set<Integer>> bookIdsByPage = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long invalidations;
+
+    /**
+     * Constructs a new {@code BookPageCache}.
+     *
+     * @param cacheManager the cache manager providing the {@value #CACHE_NAME} region
+     * @param maxPages     the maximum number of pages kept at once
+     */
+    public BookPageCache(CacheManager cacheManager,
+                         @Value("${libraryman.cache.book-pages.max-pages:1000}") int maxPages) {
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Returns the cached page for the given pagination, loading and caching it on a miss.
+     *
+     * @param pageable the page number, size and sort
+     * @param loader   reads the page from the database
+     * @return the page
+     */
+    public Page<BookDto> get(Pageable pageable, Supplier<Page<BookDto>> loader) {
+        BookPageKey key = BookPageKey.of(pageable);
+        @SuppressWarnings("unchecked")
+        Page<BookDto> cached = cache.get(key, Page.class);
+        if (cached != null && bookIdsByPage.containsKey(key)) {
+            return cached;
+        }
+
+        if (bookIdsByPage.size() >= maxPages && !bookIdsByPage.containsKey(key)) {
+            forgetEvictedPages();
+        }
+        long seen = invalidations();
+        Page<BookDto> page = loader.get();
+        lock.readLock().lock();
+        try {
+            // Skip the put if an invalidation ran while the page was read
+            if (invalidations == seen && (bookIdsByPage.size() < maxPages || bookIdsByPage.containsKey(key))) {
+                bookIdsByPage.put(key, page.stream().map(BookDto::getBookId).collect(Collectors.toUnmodifiableSet()));
+                cache.put(key, page);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return page;
+    }
+
+    /**
+     * Drops the pages that may be outdated after a book changed.
+     *
+     * @param bookId            the ID of the changed book
+     * @param changedProperties the names of the book properties whose values changed
+     */
+    public void evictBook(int bookId, Collection<String> changedProperties) {
+        afterCompletion(() -> evictIf(key -> bookIdsByPage.getOrDefault(key, Set.of()).contains(bookId)
+                || key.sort().stream().anyMatch(order -> changedProperties.contains(order.getProperty()))));
+    }
+
+    /**
+     * Drops all pages, after a book was added or deleted.
+     */
+    public void evictAll() {
+        afterCompletion(() -> evictIf(key -> true));
+    }
+
+    private void evictIf(Predicate<BookPageKey> outdated) {
+        lock.writeLock().lock();
+        try {
+            invalidations++;
+            for (BookPageKey key : bookIdsByPage.keySet()) {
+                if (outdated.test(key)) {
+                    bookIdsByPage.remove(key);
+                    cache.evict(key);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops tracking the pages the cache region has evicted on its own, by size or expiry.
+     */
+    private void forgetEvictedPages() {
+        lock.writeLock().lock();
+        try {
+            bookIdsByPage.keySet().removeIf(key -> cache.get(key) == null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long invalidations() {
+        lock.readLock().lock();
+        try {
+            return invalidations;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void afterCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Key of a cached page.
+     *
+     * @param page the page number
+     * @param size the page size
+     * @param sort the sort of the page
+     */
+    record BookPageKey(int page, int size, Sort sort) {
+
+        static BookPageKey of(Pageable pageable) {
+            return new BookPageKey(pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
+        }
+    }
+}
@@ -1,10 +1,46 @@
 package com.libraryman_api.book;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Integer> {
+
+    // Finds the books already in the catalog among the ISBNs of an import chunk
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    // Reads the catalog in ID order without a count query, used to walk all books in batches
+    List<Book> findByBookIdGreaterThanOrderByBookIdAsc(int bookId, Pageable pageable);
+
+    /**
+     * Atomically takes copies of a book out of the available stock.
+     * The row is only changed if enough copies are available.
+     *
+     * @return the number of updated rows; {@code 0} if the book does not exist or has too few copies
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.copiesAvailable = b.copiesAvailable - :copies, b.version = b.version + 1 " +
+            "WHERE b.bookId = :bookId AND b.copiesAvailable >= :copies")
+    int decrementCopiesAvailable(@Param("bookId") int bookId, @Param("copies") int copies);
+
+    /**
+     * Atomically puts copies of a book back into the available stock.
+     *
+     * @return the number of updated rows; {@code 0} if the book does not exist
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.copiesAvailable = b.copiesAvailable + :copies, b.version = b.version + 1 WHERE b.bookId = :bookId")
+    int incrementCopiesAvailable(@Param("bookId") int bookId, @Param("copies") int copies);
 }
 
 
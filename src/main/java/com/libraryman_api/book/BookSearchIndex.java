@@ -0,0 +1,486 @@
+package com.libraryman_api.book;
+
+import com.libraryman_api.exception.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the searchable fields of the book catalog.
+ *
+ * <p>The title, author, genre and publisher of every book are split into
+ * case-folded, accent-free tokens. Each token points to a sorted postings list
+ * of book IDs with a weight that reflects the field the token was found in, so
+ * that a match in the title ranks above a match in the publisher.</p>
+ *
+ * <p>A query matches a book when every query token matches one of its tokens,
+ * either exactly or as a prefix (prefix matches score lower). The index is
+ * built from {@link BookRepository} once the application is ready and is kept
+ * up to date by {@link BookService} on every catalog change.</p>
+ *
+ * <p>A build fills a fresh segment that is swapped in once complete, so searches
+ * never see a partly built index; the catalog changes made during the build are
+ * applied to both segments. A book changed during the build is not taken from the
+ * batches read by the build, which may hold its values from before the change.
+ * Until the first build completes, searches fail with a
+ * {@link ServiceUnavailableException}.</p>
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final float TITLE_WEIGHT = 4.0f;
+    private static final float AUTHOR_WEIGHT = 3.0f;
+    private static final float GENRE_WEIGHT = 1.5f;
+    private static final float PUBLISHER_WEIGHT = 1.0f;
+
+    /**
+     * Score factor applied to prefix matches, compared to exact token matches.
+     */
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    /**
+     * Tokens shorter than this are only matched exactly, not as prefixes.
+     */
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Both guarded by the lock; the live segment is null until the first build completes
+    private Segment live;
+    private Segment building;
+    // The books changed since the current build started, also guarded by the lock
+    private final Set<Integer> changedWhileBuilding = new HashSet<>();
+
+    /**
+     * Constructs a new {@code BookSearchIndex} backed by the given repository.
+     *
+     * @param bookRepository the repository the index is built from
+     */
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Builds the index from the whole catalog, reading it in batches ordered by book ID,
+     * and swaps it in once complete. Searches keep using the previous index meanwhile.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        Segment segment = new Segment();
+        lock.writeLock().lock();
+        try {
+            building = segment;
+            changedWhileBuilding.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        boolean built = false;
+        int indexed = 0;
+        try {
+            int lastBookId = 0;
+            List<Book> batch;
+            do {
+                batch = bookRepository.findByBookIdGreaterThanOrderByBookIdAsc(lastBookId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                List<Map<String, Float>> weights = new ArrayList<>(batch.size());
+                for (Book book : batch) {
+                    weights.add(tokenWeights(book));
+                    lastBookId = book.getBookId();
+                }
+                lock.writeLock().lock();
+                try {
+                    for (int i = 0; i < batch.size(); i++) {
+                        // The change already brought the segment up to date, the batch may predate it
+                        if (building != segment || !changedWhileBuilding.contains(batch.get(i).getBookId())) {
+                            segment.add(batch.get(i).getBookId(), weights.get(i));
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                indexed += batch.size();
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // A segment replaced by a later rebuild is dropped
+                if (building == segment) {
+                    building = null;
+                    changedWhileBuilding.clear();
+                    if (built) {
+                        live = segment;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        LOGGER.info("Indexed {} books for catalog search in {} ms", indexed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Adds a book to the index.
+     *
+     * @param book the book to add
+     */
+    public void add(Book book) {
+        Map<String, Float> weights = tokenWeights(book);
+        lock.writeLock().lock();
+        try {
+            if (live != null) {
+                live.add(book.getBookId(), weights);
+            }
+            if (building != null) {
+                building.add(book.getBookId(), weights);
+                changedWhileBuilding.add(book.getBookId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a book from the index.
+     *
+     * @param book the book to remove, with the field values it was indexed with
+     */
+    public void remove(Book book) {
+        Set<String> tokens = tokenWeights(book).keySet();
+        lock.writeLock().lock();
+        try {
+            if (live != null) {
+                live.remove(book.getBookId(), tokens);
+            }
+            if (building != null) {
+                building.remove(book.getBookId(), tokens);
+                changedWhileBuilding.add(book.getBookId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the indexed values of a book after it has been updated.
+     *
+     * @param previous the book as it was indexed before the update
+     * @param current  the updated book
+     */
+    public void replace(Book previous, Book current) {
+        lock.writeLock().lock();
+        try {
+            remove(previous);
+            add(current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of books in the index.
+     *
+     * @return the indexed book count, zero until the index is built
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live != null ? live.documentCount : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index and returns the IDs of the matching books, best match first.
+     *
+     * <p>Books with the same score are ordered by ID. Only the requested page is
+     * materialized; the total number of matches is reported with it.</p>
+     *
+     * @param query    the free-text query
+     * @param pageable the requested page (its sort is ignored, results are ranked)
+     * @return a {@link Page} of matching book IDs
+     * @throws ServiceUnavailableException if the index is not built yet
+     */
+    public Page<Integer> search(String query, Pageable pageable) {
+        List<String> queryTokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTokens.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (live == null) {
+                throw new ServiceUnavailableException("The catalog search index is being built, please retry shortly.");
+            }
+            List<List<TermMatch>> matchesPerToken = new ArrayList<>(queryTokens.size());
+            for (String token : queryTokens) {
+                List<TermMatch> matches = live.matchesFor(token);
+                if (matches.isEmpty()) {
+                    return Page.empty(pageable);
+                }
+                matchesPerToken.add(matches);
+            }
+            // Start from the most selective token to keep the candidate set small
+            matchesPerToken.sort(Comparator.comparingLong(BookSearchIndex::postingCount));
+
+            Map<Integer, Float> scores = new HashMap<>();
+            for (TermMatch match : matchesPerToken.get(0)) {
+                Postings postings = match.postings();
+                for (int i = 0; i < postings.size; i++) {
+                    scores.merge(postings.ids[i], postings.weights[i] * match.factor(), Math::max);
+                }
+            }
+            for (int t = 1; t < matchesPerToken.size() && !scores.isEmpty(); t++) {
+                List<TermMatch> matches = matchesPerToken.get(t);
+                if ((long) scores.size() * matches.size() <= postingCount(matches)) {
+                    probeCandidates(scores, matches);
+                } else {
+                    scanCandidates(scores, matches);
+                }
+            }
+            return topPage(scores, pageable);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Looks every candidate up in the postings of the token; cheap when there are few candidates.
+     */
+    private static void probeCandidates(Map<Integer, Float> scores, List<TermMatch> matches) {
+        Iterator<Map.Entry<Integer, Float>> candidates = scores.entrySet().iterator();
+        while (candidates.hasNext()) {
+            Map.Entry<Integer, Float> candidate = candidates.next();
+            float best = 0;
+            for (TermMatch match : matches) {
+                best = Math.max(best, match.postings().weightOf(candidate.getKey()) * match.factor());
+            }
+            if (best == 0) {
+                candidates.remove();
+            } else {
+                candidate.setValue(candidate.getValue() + best);
+            }
+        }
+    }
+
+    /**
+     * Walks the postings of the token once; cheap when the token matches many short postings lists.
+     */
+    private static void scanCandidates(Map<Integer, Float> scores, List<TermMatch> matches) {
+        Map<Integer, Float> best = new HashMap<>();
+        for (TermMatch match : matches) {
+            Postings postings = match.postings();
+            for (int i = 0; i < postings.size; i++) {
+                int id = postings.ids[i];
+                if (scores.containsKey(id)) {
+                    best.merge(id, postings.weights[i] * match.factor(), Math::max);
+                }
+            }
+        }
+        scores.keySet().retainAll(best.keySet());
+        best.forEach((id, weight) -> scores.merge(id, weight, Float::sum));
+    }
+
+    private static long postingCount(List<TermMatch> matches) {
+        long count = 0;
+        for (TermMatch match : matches) {
+            count += match.postings().size;
+        }
+        return count;
+    }
+
+    private static Page<Integer> topPage(Map<Integer, Float> scores, Pageable pageable) {
+        long limit = pageable.getOffset() + pageable.getPageSize();
+        if (pageable.getOffset() >= scores.size()) {
+            return new PageImpl<>(List.of(), pageable, scores.size());
+        }
+        Comparator<Map.Entry<Integer, Float>> ranking = Map.Entry.<Integer, Float>comparingByValue().reversed()
+                .thenComparing(Map.Entry.<Integer, Float>comparingByKey());
+        // Keep only the best (offset + size) hits, worst hit on top of the heap
+        PriorityQueue<Map.Entry<Integer, Float>> best = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Map.Entry<Integer, Float>> ranked = new ArrayList<>(best);
+        ranked.sort(ranking);
+        List<Integer> ids = new ArrayList<>(pageable.getPageSize());
+        for (int i = (int) pageable.getOffset(); i < ranked.size(); i++) {
+            ids.add(ranked.get(i).getKey());
+        }
+        return new PageImpl<>(ids, pageable, scores.size());
+    }
+
+    private static Map<String, Float> tokenWeights(Book book) {
+        Map<String, Float> weights = new LinkedHashMap<>();
+        addTokens(weights, book.getTitle(), TITLE_WEIGHT);
+        addTokens(weights, book.getAuthor(), AUTHOR_WEIGHT);
+        addTokens(weights, book.getGenre(), GENRE_WEIGHT);
+        addTokens(weights, book.getPublisher(), PUBLISHER_WEIGHT);
+        return weights;
+    }
+
+    private static void addTokens(Map<String, Float> weights, String text, float weight) {
+        for (String token : new LinkedHashSet<>(tokenize(text))) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Splits text into lower-case tokens without diacritics, e.g. "Gabriel García Márquez"
+     * becomes {@code [gabriel, garcia, marquez]}.
+     *
+     * @param text the text to tokenize, may be {@code null}
+     * @return the tokens in order of appearance
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private record TermMatch(Postings postings, float factor) {
+    }
+
+    /**
+     * The postings of every token of the indexed books, guarded by the lock of the index.
+     */
+    private static final class Segment {
+        private final NavigableMap<String, Postings> postingsByToken = new TreeMap<>();
+        private int documentCount;
+
+        void add(int bookId, Map<String, Float> weights) {
+            boolean added = false;
+            for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                added |= postingsByToken.computeIfAbsent(entry.getKey(), token -> new Postings())
+                        .put(bookId, entry.getValue());
+            }
+            if (added) {
+                documentCount++;
+            }
+        }
+
+        void remove(int bookId, Set<String> tokens) {
+            boolean removed = false;
+            for (String token : tokens) {
+                Postings postings = postingsByToken.get(token);
+                if (postings != null && postings.remove(bookId)) {
+                    removed = true;
+                    if (postings.isEmpty()) {
+                        postingsByToken.remove(token);
+                    }
+                }
+            }
+            if (removed) {
+                documentCount--;
+            }
+        }
+
+        List<TermMatch> matchesFor(String token) {
+            List<TermMatch> matches = new ArrayList<>();
+            Postings exact = postingsByToken.get(token);
+            if (exact != null) {
+                matches.add(new TermMatch(exact, 1.0f));
+            }
+            if (token.length() >= MIN_PREFIX_LENGTH) {
+                for (Postings postings : postingsByToken.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                    matches.add(new TermMatch(postings, PREFIX_FACTOR));
+                }
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Postings list of one token: book IDs in ascending order with their weights,
+     * stored in primitive arrays to keep the index compact for large catalogs.
+     */
+    private static final class Postings {
+        private int[] ids = new int[2];
+        private float[] weights = new float[2];
+        private int size;
+
+        boolean put(int id, float weight) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                weights[index] = weight;
+                return false;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(weights, insertAt, weights, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            weights[insertAt] = weight;
+            size++;
+            return true;
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        float weightOf(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index >= 0 ? weights[index] : 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
@@ -1,16 +1,40 @@
 package com.libraryman_api.book;
 
+import com.libraryman_api.exception.InvalidFieldsException;
 import com.libraryman_api.exception.InvalidSortFieldException;
+import com.libraryman_api.exception.InvalidCursorException;
+import com.libraryman_api.exception.InvalidExportFormatException;
 import com.libraryman_api.exception.ResourceNotFoundException;
+import com.libraryman_api.export.ExportFormat;
+import com.libraryman_api.export.RowExporter;
+import com.libraryman_api.pagination.FieldSet;
+import com.libraryman_api.pagination.KeysetQuery;
+import com.libraryman_api.pagination.KeysetSlice;
+import com.libraryman_api.pagination.ProjectionQuery;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing books in the LibraryMan system.
@@ -20,7 +44,11 @@ import java.util.Optional;
  * an existing book, and deleting a book by its ID.</p>
  *
  * <p>Each method in this service interacts with the {@link BookRepository} to
- * perform database operations.</p>
+ * perform database operations. Catalog changes are also applied to the
+ * {@link BookSearchIndex}, which serves full-text searches. Single books are cached in
+ * the {@code books} cache region and listing pages in the {@link BookPageCache}; a
+ * change only drops the entries it can affect. Every change also moves the
+ * {@link CatalogVersion} forward, the entity tag of the listings.</p>
  *
  * <p>In the case of an invalid book ID being provided, the service throws a
  * {@link ResourceNotFoundException}.</p>
@@ -30,33 +58,150 @@ import java.util.Optional;
 @Service
 public class BookService {
 
+    /**
+     * The fields that can be requested with the {@code fields} parameter of the books listing.
+     */
+    public static final Set<String> LIST_FIELDS = Set.of("bookId", "title", "author", "isbn", "publisher", "publishedYear", "genre", "copiesAvailable");
+
+    /**
+     * The fields of the books export when none are requested, in the order of the CSV columns.
+     */
+    public static final List<String> EXPORT_FIELDS = List.of("bookId", "title", "author", "isbn", "publisher", "publishedYear", "genre", "copiesAvailable");
+
     private final BookRepository bookRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final KeysetQuery keysetQuery;
+    private final ProjectionQuery projectionQuery;
+    private final BookPageCache bookPageCache;
+    private final CatalogVersion catalogVersion;
+    private final RowExporter rowExporter;
+    private final CacheManager cacheManager;
 
     /**
      * Constructs a new {@code BookService} with the specified {@code BookRepository}.
      *
-     * @param bookRepository the repository to be used by this service to interact with the database
+     * @param bookRepository  the repository to be used by this service to interact with the database
+     * @param bookSearchIndex the full-text index kept in sync with the catalog
+     * @param keysetQuery     the helper used for cursor-based listings
+     * @param projectionQuery the helper used for listings with sparse fieldsets
+     * @param bookPageCache   the cache of listing pages
+     * @param catalogVersion  the version of the catalog, moved forward on every change
+     * @param rowExporter     the helper used for the catalog export
+     * @param cacheManager    the cache manager holding the {@code books} cache
      */
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, BookSearchIndex bookSearchIndex, KeysetQuery keysetQuery, ProjectionQuery projectionQuery, BookPageCache bookPageCache, CatalogVersion catalogVersion, RowExporter rowExporter, CacheManager cacheManager) {
         this.bookRepository = bookRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.keysetQuery = keysetQuery;
+        this.projectionQuery = projectionQuery;
+        this.bookPageCache = bookPageCache;
+        this.catalogVersion = catalogVersion;
+        this.rowExporter = rowExporter;
+        this.cacheManager = cacheManager;
     }
 
     /**
      * Retrieves a paginated list of all books from the database.
      *
+     * <p>Pages are served from the {@link BookPageCache}, keyed by page number, size and sort.</p>
+     *
      * @param pageable the pagination information, including the page number and size
      * @return a {@link Page} of {@link Book} representing all books
      * @throws InvalidSortFieldException if an invalid sortBy field is specified
      */
 
-    @Cacheable(value = "books")
     public Page<BookDto> getAllBooks(Pageable pageable) {
-        try {
-            Page<Book> pagedBooks = bookRepository.findAll(pageable);
-            return pagedBooks.map(this::EntityToDto);
-        } catch (PropertyReferenceException ex) {
-            throw new InvalidSortFieldException("The specified 'sortBy' value is invalid.");
+        return bookPageCache.get(pageable, () -> {
+            try {
+                Page<Book> pagedBooks = bookRepository.findAll(pageable);
+                return pagedBooks.map(this::EntityToDto);
+            } catch (PropertyReferenceException ex) {
+                throw new InvalidSortFieldException("The specified 'sortBy' value is invalid.");
+            }
+        });
+    }
+
+    /**
+     * Retrieves a slice of all books using keyset pagination.
+     *
+     * <p>Unlike {@link #getAllBooks(Pageable)}, no count query is run and the slice is
+     * located by the cursor instead of an offset, so every slice costs the same.</p>
+     *
+     * @param pageable the slice size and sort; the page number is ignored
+     * @param cursor   the cursor returned with the previous slice, or empty for the first slice
+     * @return a {@link KeysetSlice} of {@link BookDto} with the cursor of the next slice
+     * @throws InvalidSortFieldException if an invalid sortBy field is specified
+     * @throws InvalidCursorException    if the cursor is invalid or was issued for another sort
+     */
+    public KeysetSlice<BookDto> getAllBooks(Pageable pageable, String cursor) {
+        return keysetQuery.find(Book.class, "bookId", pageable, cursor).map(this::EntityToDto);
+    }
+
+    /**
+     * Retrieves a page, or a keyset slice when a cursor is given, of all books holding only the requested fields.
+     *
+     * <p>Only the requested columns are selected, so no entity is loaded and no DTO is built.
+     * These pages bypass the {@link BookPageCache}.</p>
+     *
+     * @param pageable the pagination information, including the page number and size
+     * @param cursor   the cursor returned with the previous slice, or {@code null} for offset pagination
+     * @param fields   the requested fields, out of {@link #LIST_FIELDS}
+     * @return a {@link Slice} of rows holding the requested fields
+     * @throws InvalidFieldsException    if a field is not one of {@link #LIST_FIELDS}
+     * @throws InvalidSortFieldException if an invalid sortBy field is specified
+     * @throws InvalidCursorException    if the cursor is invalid or was issued for another sort
+     */
+    public Slice<Map<String, Object>> getAllBooks(Pageable pageable, String cursor, List<String> fields) {
+        FieldSet fieldSet = FieldSet.of(fields, LIST_FIELDS);
+        if (cursor != null) {
+            return keysetQuery.find(Book.class, "bookId", pageable, cursor, fieldSet);
         }
+        return projectionQuery.findPage(Book.class, pageable, fieldSet);
+    }
+
+    /**
+     * Exports the whole catalog, in book ID order.
+     *
+     * <p>The books are streamed by the {@link RowExporter}, reading a slice of rows at a time,
+     * so that catalogs of any size can be exported.</p>
+     *
+     * @param format         the format of the export, {@code csv} or {@code ndjson}
+     * @param fields         the exported fields, out of {@link #LIST_FIELDS}, or {@code null} for {@link #EXPORT_FIELDS}
+     * @param acceptEncoding the {@code Accept-Encoding} header of the request; the export is compressed with gzip if it allows it
+     * @return the response streaming the books
+     * @throws InvalidExportFormatException if the format is unknown
+     * @throws InvalidFieldsException       if a field is not one of {@link #LIST_FIELDS}
+     */
+    public ResponseEntity<StreamingResponseBody> exportBooks(String format, List<String> fields, String acceptEncoding) {
+        FieldSet fieldSet = FieldSet.of(fields != null ? fields : EXPORT_FIELDS, LIST_FIELDS);
+        return rowExporter.export("books", Book.class, "bookId", fieldSet, ExportFormat.of(format), acceptEncoding);
+    }
+
+    /**
+     * Searches the catalog by title, author, genre and publisher.
+     *
+     * <p>The query is matched against the {@link BookSearchIndex}; only the books of the
+     * requested page are then loaded from the database, in ranking order.</p>
+     *
+     * @param query    the free-text query
+     * @param pageable the pagination information, including the page number and size
+     * @return a {@link Page} of {@link BookDto} ordered by relevance
+     */
+    public Page<BookDto> searchBooks(String query, Pageable pageable) {
+        Page<Integer> hits = bookSearchIndex.search(query, pageable);
+        if (hits.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.getTotalElements());
+        }
+        Map<Integer, Book> booksById = bookRepository.findAllById(hits.getContent()).stream()
+                .collect(Collectors.toMap(Book::getBookId, Function.identity()));
+        List<BookDto> books = new ArrayList<>(hits.getNumberOfElements());
+        for (Integer bookId : hits.getContent()) {
+            Book book = booksById.get(bookId);
+            if (book != null) {
+                books.add(EntityToDto(book));
+            }
+        }
+        return new PageImpl<>(books, pageable, hits.getTotalElements());
     }
 
     /**
@@ -80,10 +225,12 @@ public class BookService {
      * @return the saved book
      */
 
-    @CacheEvict(value = "books", allEntries = true)
     public BookDto addBook(BookDto bookDto) {
         Book book = DtoToEntity(bookDto);
         Book savedBook = bookRepository.save(book);
+        bookSearchIndex.add(savedBook);
+        bookPageCache.evictAll();
+        catalogVersion.changed();
         return EntityToDto(savedBook);
     }
 
@@ -96,13 +243,11 @@ public class BookService {
      * @throws ResourceNotFoundException if the book with the specified ID is not found
      */
 
-    @Caching(evict = {
-            @CacheEvict(value = "books", key = "#bookId"), // Evict the specific book cache
-            @CacheEvict(value = "books", allEntries = true) // Evict the list cache
-    })
+    @CacheEvict(value = "books", key = "#bookId")
     public BookDto updateBook(int bookId, BookDto bookDtoDetails) {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
+        Book previous = DtoToEntity(EntityToDto(book)); // Snapshot of the indexed values
         book.setTitle(bookDtoDetails.getTitle());
         book.setAuthor(bookDtoDetails.getAuthor());
         book.setIsbn(bookDtoDetails.getIsbn());
@@ -111,6 +256,9 @@ public class BookService {
         book.setGenre(bookDtoDetails.getGenre());
         book.setCopiesAvailable(bookDtoDetails.getCopiesAvailable());
         Book updatedBook = bookRepository.save(book);
+        bookSearchIndex.replace(previous, updatedBook);
+        bookPageCache.evictBook(bookId, changedProperties(previous, updatedBook));
+        catalogVersion.changed();
         return EntityToDto(updatedBook);
     }
 
@@ -121,14 +269,92 @@ public class BookService {
      * @throws ResourceNotFoundException if the book with the specified ID is not found
      */
 
-    @Caching(evict = {
-            @CacheEvict(value = "books", key = "#bookId"), // Evict the specific book cache
-            @CacheEvict(value = "books", allEntries = true) // Evict the list cache
-    })
+    @CacheEvict(value = "books", key = "#bookId")
     public void deleteBook(int bookId) {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
         bookRepository.delete(book);
+        bookSearchIndex.remove(book);
+        bookPageCache.evictAll();
+        catalogVersion.changed();
+    }
+
+    /**
+     * Takes copies of a book out of the available stock.
+     *
+     * <p>The stock is changed with a single conditional update, so concurrent checkouts
+     * can never drive {@code copiesAvailable} below zero and no update is lost. The cached book
+     * is evicted again once the transaction of the checkout completes.</p>
+     *
+     * @param bookId the ID of the book being borrowed
+     * @param copies the number of copies to take
+     * @throws ResourceNotFoundException if the book is not found or if there are not enough copies available
+     */
+
+    public void reserveCopies(int bookId, int copies) {
+        if (bookRepository.decrementCopiesAvailable(bookId, copies) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new ResourceNotFoundException("Book not found");
+            }
+            throw new ResourceNotFoundException("Not enough copies available");
+        }
+        evictAfterCompletion(bookId);
+        bookPageCache.evictBook(bookId, Set.of("copiesAvailable"));
+        catalogVersion.changed();
+    }
+
+    /**
+     * Puts copies of a book back into the available stock.
+     *
+     * <p>The cached book is evicted again once the transaction of the return completes.</p>
+     *
+     * @param bookId the ID of the book being returned
+     * @param copies the number of copies to put back
+     * @throws ResourceNotFoundException if the book is not found
+     */
+
+    public void releaseCopies(int bookId, int copies) {
+        if (bookRepository.incrementCopiesAvailable(bookId, copies) == 0) {
+            throw new ResourceNotFoundException("Book not found");
+        }
+        evictAfterCompletion(bookId);
+        bookPageCache.evictBook(bookId, Set.of("copiesAvailable"));
+        catalogVersion.changed();
+    }
+
+    // Evicts the cached book now and again once the transaction completes, so that a read made
+    // before the commit cannot cache the previous stock and version until the entry expires
+    private void evictAfterCompletion(int bookId) {
+        Cache books = cacheManager.getCache("books");
+        books.evict(bookId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    books.evict(bookId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the names of the book properties whose values differ between two versions of a book.
+     *
+     * @param before the book before the change
+     * @param after  the book after the change
+     * @return the names of the changed properties
+     */
+    private static Set<String> changedProperties(Book before, Book after) {
+        return Stream.of(
+                        Objects.equals(before.getTitle(), after.getTitle()) ? null : "title",
+                        Objects.equals(before.getAuthor(), after.getAuthor()) ? null : "author",
+                        Objects.equals(before.getIsbn(), after.getIsbn()) ? null : "isbn",
+                        Objects.equals(before.getPublisher(), after.getPublisher()) ? null : "publisher",
+                        before.getPublishedYear() == after.getPublishedYear() ? null : "publishedYear",
+                        Objects.equals(before.getGenre(), after.getGenre()) ? null : "genre",
+                        before.getCopiesAvailable() == after.getCopiesAvailable() ? null : "copiesAvailable")
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     /**
@@ -153,6 +379,7 @@ public class BookService {
         bookDto.setGenre(book.getGenre());
         bookDto.setIsbn(book.getIsbn());
         bookDto.setCopiesAvailable(book.getCopiesAvailable());
+        bookDto.setVersion(book.getVersion());
         return bookDto;
     }
 
@@ -0,0 +1,50 @@
+package com.libraryman_api.book;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the whole catalog, sent as the entity tag of the book listings.
+ *
+ * <p>Every change to a book moves the version forward, so a client holding a listing with
+ * the current tag can be answered {@code 304 Not Modified} without reading any book. A change
+ * made inside a transaction moves the version again after the transaction completes, so a
+ * listing read before the commit never carries the tag of the committed catalog.</p>
+ *
+ * <p>The version lives in memory, like the {@link BookPageCache}, and includes the start time
+ * of the application, so tags issued before a restart never match again. With several
+ * instances, each would need to see the changes made through the others.</p>
+ */
+@Component
+public class CatalogVersion {
+
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * Returns the strong entity tag of the current version.
+     *
+     * @return the quoted entity tag
+     */
+    public String etag() {
+        return "\"catalog-" + startedAt + "-" + changes.get() + "\"";
+    }
+
+    /**
+     * Moves the version forward after a book was added, changed or deleted.
+     */
+    public void changed() {
+        changes.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    changes.incrementAndGet();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.libraryman_api.book;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader of comma-separated values (RFC 4180).
+ *
+ * <p>Records are read one at a time from the underlying reader, so only the current record
+ * is held in memory. Fields may be quoted, in which case they can contain commas, line breaks
+ * and doubled quotes ({@code ""}). Records end with {@code LF} or {@code CRLF}, a leading
+ * byte order mark is skipped and blank lines are ignored.</p>
+ */
+class CsvReader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean started;
+
+    /**
+     * Constructs a new {@code CsvReader}.
+     *
+     * @param reader          the reader the values are read from
+     * @param maxRecordLength the maximum number of characters of a record, which bounds the memory
+     *                        taken by a malformed file, such as one with an unterminated quote
+     */
+    CsvReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the fields of the record, or {@code null} at the end of the input
+     * @throws IOException if the input cannot be read, or a record is longer than the maximum length
+     */
+    List<String> next() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+        } while (record != null && record.size() == 1 && record.get(0).isEmpty());
+        return record;
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> record = new ArrayList<>();
+        int length = 0;
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            if (++length > maxRecordLength) {
+                throw new IOException("A record is longer than " + maxRecordLength + " characters.");
+            }
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("A quoted field is not terminated.");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c < 0) {
+                record.add(field.toString());
+                return record;
+            } else if (c == '\r') {
+                int following = read();
+                if (following != '\n' && following >= 0) {
+                    position--;
+                }
+                record.add(field.toString());
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        char c = buffer[position++];
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                return read();
+            }
+        }
+        return c;
+    }
+}
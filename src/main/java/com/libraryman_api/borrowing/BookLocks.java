@@ -0,0 +1,73 @@
+package com.libraryman_api.borrowing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks used to serialize checkouts and returns of the same book.
+ *
+ * <p>Instead of funnelling every borrowing operation through a single monitor,
+ * each book ID is mapped onto one of a fixed number of {@link ReentrantLock}s.
+ * Operations on different books therefore proceed in parallel, while operations
+ * on the same book (or on two books that happen to share a stripe) are executed
+ * one at a time.</p>
+ *
+ * <p>The number of stripes is configured with {@code libraryman.borrowing.lock-stripes}
+ * and is rounded up to the next power of two.</p>
+ */
+@Component
+public class BookLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * Constructs a new {@code BookLocks} with the given number of stripes.
+     *
+     * @param stripeCount the requested number of lock stripes
+     */
+    public BookLocks(@Value("${libraryman.borrowing.lock-stripes:64}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Runs the given action while holding the lock stripe of the given book.
+     *
+     * @param bookId the ID of the book being borrowed or returned
+     * @param action the action to run
+     * @param <T>    the result type of the action
+     * @return the result of the action
+     */
+    public <T> T withLock(int bookId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(bookId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of lock stripes.
+     *
+     * @return the stripe count
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    ReentrantLock lockFor(int bookId) {
+        // Spread the bits so that sequential IDs do not cluster on neighbouring stripes
+        int h = bookId * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
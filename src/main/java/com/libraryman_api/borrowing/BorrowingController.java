@@ -1,18 +1,25 @@
 package com.libraryman_api.borrowing;
 
 import com.libraryman_api.exception.ResourceNotFoundException;
+import com.libraryman_api.pagination.KeysetSlice;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 /**
  * REST controller for managing borrowings in the LibraryMan application.
  * This controller provides endpoints for performing operations related to borrowing and returning books,
- * paying fines, and retrieving borrowing records.
+ * paying fines, and retrieving and exporting borrowing records.
  */
 @RestController
 @RequestMapping("/api/borrowings")
@@ -35,14 +42,21 @@ public class BorrowingController {
      * @param pageable contains pagination information (page number, size, and sorting).
      * @param sortBy   (optional) the field by which to sort the results.
      * @param sortDir  (optional) the direction of sorting (asc or desc). Defaults to ascending.
-     * @return a {@link Page} of {@link Borrowings} representing all borrowings.
+     * @param cursor   (optional) switches to keyset pagination: empty for the first slice, then the
+     *                 {@code nextCursor} of the previous response. The page number is then ignored and
+     *                 no total count is computed.
+     * @param fields   (optional) a sparse fieldset, such as {@code fields=book.title,member.name}: only these fields are
+     *                 selected and returned for each row.
+     * @return a {@link Page}, or a {@link KeysetSlice} when a cursor is given, of {@link Borrowings} representing all borrowings.
      * The results are sorted by borrow date by default and limited to 5 members per page.
      */
     @GetMapping
     @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
-    public Page<BorrowingsDto> getAllBorrowings(@PageableDefault(page = 0, size = 5, sort = "borrowDate") Pageable pageable,
-                                                @RequestParam(required = false) String sortBy,
-                                                @RequestParam(required = false) String sortDir) {
+    public Slice<?> getAllBorrowings(@PageableDefault(page = 0, size = 5, sort = "borrowDate") Pageable pageable,
+                                     @RequestParam(required = false) String sortBy,
+                                     @RequestParam(required = false) String sortDir,
+                                     @RequestParam(required = false) String cursor,
+                                     @RequestParam(required = false) List<String> fields) {
 
         // Adjust the pageable based on dynamic sorting parameters
         if (sortBy != null && !sortBy.isEmpty()) {
@@ -55,9 +69,31 @@ public class BorrowingController {
             pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(direction, sortBy));
         }
 
+        if (fields != null) {
+            return borrowingService.getAllBorrowings(pageable, cursor, fields);
+        }
+        if (cursor != null) {
+            return borrowingService.getAllBorrowings(pageable, cursor);
+        }
         return borrowingService.getAllBorrowings(pageable);
     }
 
+    /**
+     * Exports all borrowing records as a download, streamed as they are read.
+     *
+     * @param format         (optional) the format of the export, {@code ndjson} (default) or {@code csv}.
+     * @param fields         (optional) the exported fields, such as {@code fields=dueDate,book.title}; all fields by default.
+     * @param acceptEncoding the encodings accepted by the client; the export is compressed with gzip if it is one of them.
+     * @return a {@link ResponseEntity} streaming the borrowings, in borrowing ID order.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBorrowings(@RequestParam(defaultValue = "ndjson") String format,
+                                                                  @RequestParam(required = false) List<String> fields,
+                                                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return borrowingService.exportBorrowings(format, fields, acceptEncoding);
+    }
+
     /**
      * Records a new book borrowing.
      *
@@ -88,7 +124,6 @@ public class BorrowingController {
      */
     @PutMapping("/{id}/pay")
     public String payFine(@PathVariable int id) {
-        System.out.println("Pay Fine Id: " + id);
         return borrowingService.payFine(id);
     }
 
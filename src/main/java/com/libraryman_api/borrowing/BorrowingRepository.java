@@ -2,17 +2,37 @@ package com.libraryman_api.borrowing;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BorrowingRepository extends JpaRepository<Borrowings, Integer> {
 
+    // The associations are lazy; the listings and lookups below load them in the same query
+    @Override
+    @EntityGraph(attributePaths = {"book", "member", "fine"})
+    Page<Borrowings> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"book", "member", "fine"})
+    Optional<Borrowings> findById(Integer borrowingId);
+
     // Underscore (_) used for property traversal, navigating from Borrowings to Members entity via 'member' property
+    @EntityGraph(attributePaths = {"book", "member", "fine"})
     Page<Borrowings> findByMember_memberId(int memberId, Pageable pageable);
 
     List<Borrowings> findByBook_bookId(int bookId);
+
+    // Loads the book, member and fine in the same query, for the notifications rendered from them
+    @Query("SELECT b FROM Borrowings b JOIN FETCH b.book JOIN FETCH b.member LEFT JOIN FETCH b.fine " +
+            "WHERE b.borrowingId IN :borrowingIds")
+    List<Borrowings> findAllWithDetailsByBorrowingIdIn(@Param("borrowingIds") Collection<Integer> borrowingIds);
 }
 
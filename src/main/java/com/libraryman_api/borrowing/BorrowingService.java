@@ -3,36 +3,64 @@ package com.libraryman_api.borrowing;
 import com.libraryman_api.book.Book;
 import com.libraryman_api.book.BookDto;
 import com.libraryman_api.book.BookService;
+import com.libraryman_api.exception.InvalidCursorException;
+import com.libraryman_api.exception.InvalidExportFormatException;
+import com.libraryman_api.exception.InvalidFieldsException;
 import com.libraryman_api.exception.InvalidSortFieldException;
 import com.libraryman_api.exception.ResourceNotFoundException;
+import com.libraryman_api.export.ExportFormat;
+import com.libraryman_api.export.RowExporter;
 import com.libraryman_api.fine.FineRepository;
 import com.libraryman_api.fine.Fines;
 import com.libraryman_api.member.MemberService;
 import com.libraryman_api.member.Members;
 import com.libraryman_api.member.dto.MembersDto;
-import com.libraryman_api.notification.NotificationService;
+import com.libraryman_api.notification.NotificationOutbox;
+import com.libraryman_api.notification.NotificationType;
+import com.libraryman_api.pagination.FieldSet;
+import com.libraryman_api.pagination.KeysetQuery;
+import com.libraryman_api.pagination.KeysetSlice;
+import com.libraryman_api.pagination.ProjectionQuery;
+import com.libraryman_api.tracing.Tracer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.temporal.ChronoUnit;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service class for managing the borrowing and returning of books in the LibraryMan system.
  *
  * <p>This service handles the borrowing and returning processes, including calculating
  * due dates, imposing fines for overdue returns, and managing the availability of books.
- * It also integrates with the {@link NotificationService} to send notifications
- * related to borrowing, returning, and fines.</p>
+ * Notifications related to borrowing, returning, and fines are recorded in the
+ * {@link NotificationOutbox} in the same transaction as the change they report, and
+ * sent in the background.</p>
  *
  * <p>Each method interacts with the {@link BorrowingRepository} and {@link FineRepository}
- * to perform database operations, ensuring consistency and proper transactional behavior.</p>
+ * to perform database operations, ensuring consistency and proper transactional behavior.
+ * Borrowing and returning are serialized per book through {@link BookLocks}, so that
+ * operations on unrelated books never wait for each other.</p>
+ *
+ * <p>Checkouts, returns and fine payments are traced by the {@link Tracer}, with a span for
+ * the lock wait, each repository call and each notification queued.</p>
  *
  * <p>In cases where a book or borrowing record is not found, or if an operation cannot be completed
  * (e.g., returning a book with an outstanding fine), the service throws a
@@ -43,26 +71,84 @@ import java.util.Optional;
 @Service
 public class BorrowingService {
 
+    /**
+     * The fields that can be requested with the {@code fields} parameter of the borrowings listing.
+     */
+    public static final Set<String> LIST_FIELDS = Set.of("borrowingId", "borrowDate", "dueDate", "returnDate",
+            "book.bookId", "book.title", "book.author", "book.isbn",
+            "member.memberId", "member.name", "member.email",
+            "fine.fineId", "fine.amount", "fine.paid");
+
+    /**
+     * The fields of the borrowings export when none are requested, in the order of the CSV columns.
+     */
+    public static final List<String> EXPORT_FIELDS = List.of("borrowingId", "borrowDate", "dueDate", "returnDate",
+            "book.bookId", "book.title", "book.author", "book.isbn",
+            "member.memberId", "member.name", "member.email",
+            "fine.fineId", "fine.amount", "fine.paid");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BorrowingService.class);
+
     private final BorrowingRepository borrowingRepository;
     private final FineRepository fineRepository;
-    private final NotificationService notificationService;
+    private final NotificationOutbox notificationOutbox;
     private final BookService bookService;
     private final MemberService memberService;
+    private final BookLocks bookLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final KeysetQuery keysetQuery;
+    private final ProjectionQuery projectionQuery;
+    private final RowExporter rowExporter;
+    private final Counter borrowed;
+    private final Counter returned;
+    private final Counter finesImposed;
+    private final Counter finesPaid;
+    private final Tracer tracer;
 
     /**
      * Constructs a new {@code BorrowingService} with the specified repositories and services.
      *
      * @param borrowingRepository the repository for managing borrowing records
      * @param fineRepository      the repository for managing fine records
-     * @param notificationService the service for sending notifications
+     * @param notificationOutbox  the outbox recording the notifications to send
      * @param bookService         the service for managing book records
+     * @param memberService       the service for managing member records
+     * @param bookLocks           the per-book locks guarding checkouts and returns
+     * @param transactionTemplate the template used to run a checkout inside its book lock
+     * @param keysetQuery         the helper used for cursor-based listings
+     * @param projectionQuery     the helper used for listings with sparse fieldsets
+     * @param rowExporter         the helper used for the circulation export
+     * @param meterRegistry       the registry the circulation counters are published to
+     * @param tracer              the tracer timing the stages of checkouts, returns and payments
      */
-    public BorrowingService(BorrowingRepository borrowingRepository, FineRepository fineRepository, NotificationService notificationService, BookService bookService, MemberService memberService) {
+    public BorrowingService(BorrowingRepository borrowingRepository, FineRepository fineRepository, NotificationOutbox notificationOutbox, BookService bookService, MemberService memberService, BookLocks bookLocks, TransactionTemplate transactionTemplate, KeysetQuery keysetQuery, ProjectionQuery projectionQuery, RowExporter rowExporter, MeterRegistry meterRegistry, Tracer tracer) {
         this.borrowingRepository = borrowingRepository;
         this.fineRepository = fineRepository;
-        this.notificationService = notificationService;
+        this.notificationOutbox = notificationOutbox;
         this.bookService = bookService;
         this.memberService = memberService;
+        this.bookLocks = bookLocks;
+        this.transactionTemplate = transactionTemplate;
+        this.keysetQuery = keysetQuery;
+        this.projectionQuery = projectionQuery;
+        this.rowExporter = rowExporter;
+        this.borrowed = Counter.builder("libraryman.borrowings")
+                .description("Books checked out and returned")
+                .tag("operation", "borrow")
+                .register(meterRegistry);
+        this.returned = Counter.builder("libraryman.borrowings")
+                .description("Books checked out and returned")
+                .tag("operation", "return")
+                .register(meterRegistry);
+        this.finesImposed = Counter.builder("libraryman.fines")
+                .description("Fines imposed on late returns and paid")
+                .tag("event", "imposed")
+                .register(meterRegistry);
+        this.finesPaid = Counter.builder("libraryman.fines")
+                .description("Fines imposed on late returns and paid")
+                .tag("event", "paid")
+                .register(meterRegistry);
+        this.tracer = tracer;
     }
 
     /**
@@ -81,6 +167,63 @@ public class BorrowingService {
         }
     }
 
+    /**
+     * Retrieves a slice of all borrowing records using keyset pagination.
+     *
+     * <p>Unlike {@link #getAllBorrowings(Pageable)}, no count query is run and the slice is
+     * located by the cursor instead of an offset, so every slice costs the same.</p>
+     *
+     * @param pageable the slice size and sort; the page number is ignored
+     * @param cursor   the cursor returned with the previous slice, or empty for the first slice
+     * @return a {@link KeysetSlice} of {@link BorrowingsDto} with the cursor of the next slice
+     * @throws InvalidSortFieldException if an invalid sortBy field is specified
+     * @throws InvalidCursorException    if the cursor is invalid or was issued for another sort
+     */
+    public KeysetSlice<BorrowingsDto> getAllBorrowings(Pageable pageable, String cursor) {
+        return keysetQuery.find(Borrowings.class, "borrowingId", pageable, cursor, "book", "member", "fine")
+                .map(this::EntityToDto);
+    }
+
+    /**
+     * Retrieves a page, or a keyset slice when a cursor is given, of all borrowings holding only the requested fields.
+     *
+     * <p>Only the requested columns are selected, so no entity is loaded and no DTO is built.
+     * Fields of the book, member and fine are requested as {@code book.title} and returned nested.</p>
+     *
+     * @param pageable the pagination information, including the page number and size
+     * @param cursor   the cursor returned with the previous slice, or {@code null} for offset pagination
+     * @param fields   the requested fields, out of {@link #LIST_FIELDS}
+     * @return a {@link Slice} of rows holding the requested fields
+     * @throws InvalidFieldsException    if a field is not one of {@link #LIST_FIELDS}
+     * @throws InvalidSortFieldException if an invalid sortBy field is specified
+     * @throws InvalidCursorException    if the cursor is invalid or was issued for another sort
+     */
+    public Slice<Map<String, Object>> getAllBorrowings(Pageable pageable, String cursor, List<String> fields) {
+        FieldSet fieldSet = FieldSet.of(fields, LIST_FIELDS);
+        if (cursor != null) {
+            return keysetQuery.find(Borrowings.class, "borrowingId", pageable, cursor, fieldSet);
+        }
+        return projectionQuery.findPage(Borrowings.class, pageable, fieldSet);
+    }
+
+    /**
+     * Exports all borrowing records, in borrowing ID order.
+     *
+     * <p>The borrowings are streamed by the {@link RowExporter}, reading a slice of rows at a time
+     * with their book, member and fine fields joined in, so that any number of records can be exported.</p>
+     *
+     * @param format         the format of the export, {@code csv} or {@code ndjson}
+     * @param fields         the exported fields, out of {@link #LIST_FIELDS}, or {@code null} for {@link #EXPORT_FIELDS}
+     * @param acceptEncoding the {@code Accept-Encoding} header of the request; the export is compressed with gzip if it allows it
+     * @return the response streaming the borrowings
+     * @throws InvalidExportFormatException if the format is unknown
+     * @throws InvalidFieldsException       if a field is not one of {@link #LIST_FIELDS}
+     */
+    public ResponseEntity<StreamingResponseBody> exportBorrowings(String format, List<String> fields, String acceptEncoding) {
+        FieldSet fieldSet = FieldSet.of(fields != null ? fields : EXPORT_FIELDS, LIST_FIELDS);
+        return rowExporter.export("borrowings", Borrowings.class, "borrowingId", fieldSet, ExportFormat.of(format), acceptEncoding);
+    }
+
     /**
      * Retrieves a borrowing record by its ID.
      *
@@ -95,38 +238,46 @@ public class BorrowingService {
     /**
      * Manages the borrowing process for a book.
      *
-     * <p>This method is synchronized to ensure thread safety and is marked as
-     * {@link Transactional} to ensure that all database operations complete successfully
-     * or roll back in case of any errors. It updates the book's availability, sets the
-     * borrowing and due dates, and sends notifications related to the borrowing.</p>
+     * <p>This method holds the lock of the borrowed book for the whole checkout and runs
+     * the checkout in a transaction that commits before the lock is released, so that all
+     * database operations complete successfully or roll back in case of any errors.
+     * Checkouts of other books are not blocked. It updates the book's availability, sets the
+     * borrowing and due dates, and queues the notifications related to the borrowing.</p>
      *
      * @param borrowing the borrowing details provided by the user
      * @return the saved borrowing record
      * @throws ResourceNotFoundException if the book is not found or if there are not enough copies available
      */
-    @Transactional
-    public synchronized BorrowingsDto borrowBook(BorrowingsDto borrowing) {
-        Optional<BookDto> bookDto = bookService.getBookById(borrowing.getBook().getBookId());
-        Optional<MembersDto> memberDto = memberService.getMemberById(borrowing.getMember().getMemberId());
+    public BorrowingsDto borrowBook(BorrowingsDto borrowing) {
+        BorrowingsDto saved = tracer.trace("borrow", () -> {
+            long lockRequested = System.nanoTime();
+            return bookLocks.withLock(borrowing.getBook().getBookId(), () -> {
+                tracer.spanSince("lock.wait", lockRequested);
+                return tracer.span("transaction", () -> transactionTemplate.execute(status -> checkout(borrowing)));
+            });
+        });
+        borrowed.increment();
+        return saved;
+    }
+
+    private BorrowingsDto checkout(BorrowingsDto borrowing) {
+        Optional<BookDto> bookDto = tracer.span("book.find", () -> bookService.getBookById(borrowing.getBook().getBookId()));
+        Optional<MembersDto> memberDto = tracer.span("member.find", () -> memberService.getMemberById(borrowing.getMember().getMemberId()));
         if (bookDto.isPresent() && memberDto.isPresent()) {
             Book bookEntity = bookService.DtoToEntity(bookDto.get());
             Members memberEntity = memberService.DtoEntity(memberDto.get());
 
-            if (bookEntity.getCopiesAvailable() > 0) {
-                updateBookCopies(bookDto, "REMOVE", 1);
-                borrowing.setBorrowDate(new Date());
-                borrowing.setBook(bookService.EntityToDto(bookEntity));
-                borrowing.setMember(memberService.EntityToDto(memberEntity));
-                borrowing.setDueDate(calculateDueDate());
+            tracer.span("book.reserve", () -> updateBookCopies(bookEntity.getBookId(), "REMOVE", 1));
+            borrowing.setBorrowDate(new Date());
+            borrowing.setBook(bookService.EntityToDto(bookEntity));
+            borrowing.setMember(memberService.EntityToDto(memberEntity));
+            borrowing.setDueDate(calculateDueDate());
 
-                Borrowings savedBorrowing = borrowingRepository.save(DtoToEntity(borrowing));
+            Borrowings savedBorrowing = tracer.span("borrowing.save", () -> borrowingRepository.save(DtoToEntity(borrowing)));
 
-                notificationService.borrowBookNotification(savedBorrowing); // Null Book problem
-                notificationService.reminderNotification(savedBorrowing); // send this notification two days before the due date // Null Book problem
-                return EntityToDto(savedBorrowing);
-            } else {
-                throw new ResourceNotFoundException("Not enough copies available");
-            }
+            tracer.span("outbox.enqueue", () -> notificationOutbox.enqueue(NotificationType.BORROW, savedBorrowing));
+            tracer.span("outbox.enqueue", () -> notificationOutbox.enqueue(NotificationType.REMINDER, savedBorrowing));
+            return EntityToDto(savedBorrowing);
         } else {
             if (bookDto.isEmpty()) {
                 throw new ResourceNotFoundException("Book not found");
@@ -138,18 +289,35 @@ public class BorrowingService {
     /**
      * Manages the return process for a borrowed book.
      *
-     * <p>This method is synchronized to ensure thread safety. It checks for overdue returns,
+     * <p>This method holds the lock of the returned book while the return is processed, so
+     * concurrent returns and checkouts of the same book are serialized. It checks for overdue returns,
      * imposes fines if necessary, and updates the book's availability. Notifications are sent
      * for fines and successful returns. If a fine is imposed, the book cannot be returned until
-     * the fine is paid.</p>
+     * the fine is paid. The released copy, or the imposed fine, is saved in the same transaction
+     * as the borrowing and its notification, so that a failed return changes nothing.</p>
      *
      * @param borrowingId the ID of the borrowing record
      * @throws ResourceNotFoundException if the borrowing record is not found, if the book has already been returned, or if there are outstanding fines
      */
-    public synchronized BorrowingsDto returnBook(int borrowingId) {
-        BorrowingsDto borrowingsDto = getBorrowingById(borrowingId)
+    public BorrowingsDto returnBook(int borrowingId) {
+        BorrowingsDto returnedBorrowing = tracer.trace("return", () -> {
+            BorrowingsDto borrowing = tracer.span("borrowing.find", () -> getBorrowingById(borrowingId))
+                    .orElseThrow(() -> new ResourceNotFoundException("Borrowing not found"));
+            long lockRequested = System.nanoTime();
+            return bookLocks.withLock(borrowing.getBook().getBookId(), () -> {
+                tracer.spanSince("lock.wait", lockRequested);
+                return completeReturn(borrowingId);
+            });
+        });
+        returned.increment();
+        return returnedBorrowing;
+    }
+
+    private BorrowingsDto completeReturn(int borrowingId) {
+        // Re-read under the lock so that a concurrent return of the same borrowing is detected
+        BorrowingsDto borrowingsDto = tracer.span("borrowing.find", () -> getBorrowingById(borrowingId))
                 .orElseThrow(() -> new ResourceNotFoundException("Borrowing not found"));
-        Optional<MembersDto> memberDto = memberService.getMemberById(borrowingsDto.getMember().getMemberId());
+        Optional<MembersDto> memberDto = tracer.span("member.find", () -> memberService.getMemberById(borrowingsDto.getMember().getMemberId()));
         if (!memberDto.isPresent()) {
             throw new ResourceNotFoundException("Member not found");
         }
@@ -158,21 +326,25 @@ public class BorrowingService {
         }
         if (borrowingsDto.getDueDate().before(new Date())) {
             if (borrowingsDto.getFine() == null) {
-                borrowingsDto.setFine(imposeFine(DtoToEntity(borrowingsDto)));
-                borrowingRepository.save(DtoToEntity(borrowingsDto));
-                notificationService.fineImposedNotification(DtoToEntity(borrowingsDto));
+                tracer.span("transaction", () -> transactionTemplate.executeWithoutResult(status -> {
+                    borrowingsDto.setFine(tracer.span("fine.save", () -> imposeFine(DtoToEntity(borrowingsDto))));
+                    Borrowings savedBorrowing = tracer.span("borrowing.save", () -> borrowingRepository.save(DtoToEntity(borrowingsDto)));
+                    tracer.span("outbox.enqueue", () -> notificationOutbox.enqueue(NotificationType.FINE, savedBorrowing));
+                }));
+                finesImposed.increment();
                 throw new ResourceNotFoundException("Due date passed. Fine imposed, pay fine first to return the book");
             } else if (!borrowingsDto.getFine().isPaid()) {
-                notificationService.fineImposedNotification(DtoToEntity(borrowingsDto));
+                tracer.span("outbox.enqueue", () -> notificationOutbox.enqueue(NotificationType.FINE, DtoToEntity(borrowingsDto)));
                 throw new ResourceNotFoundException("Outstanding fine, please pay before returning the book");
             }
         }
 
         borrowingsDto.setReturnDate(new Date());
-        Optional<BookDto> bookDto = bookService.getBookById(borrowingsDto.getBook().getBookId());
-        updateBookCopies(bookDto, "ADD", 1);
-        notificationService.bookReturnedNotification(DtoToEntity(borrowingsDto));
-        borrowingRepository.save(DtoToEntity(borrowingsDto));
+        tracer.span("transaction", () -> transactionTemplate.executeWithoutResult(status -> {
+            tracer.span("book.release", () -> updateBookCopies(borrowingsDto.getBook().getBookId(), "ADD", 1));
+            Borrowings savedBorrowing = tracer.span("borrowing.save", () -> borrowingRepository.save(DtoToEntity(borrowingsDto)));
+            tracer.span("outbox.enqueue", () -> notificationOutbox.enqueue(NotificationType.RETURNED, savedBorrowing));
+        }));
         return borrowingsDto;
     }
 
@@ -191,7 +363,7 @@ public class BorrowingService {
     /**
      * Processes the payment of a fine associated with a borrowing.
      *
-     * <p>If the fine is successfully paid, a notification is sent. The borrowing and fine
+     * <p>If the fine is successfully paid, a notification is queued. The borrowing and fine
      * records are updated in the database.</p>
      *
      * @param borrowingId the ID of the borrowing record with the fine
@@ -199,9 +371,13 @@ public class BorrowingService {
      * @throws ResourceNotFoundException if the borrowing record is not found or if there is no outstanding fine
      */
     public String payFine(int borrowingId) {
-        BorrowingsDto borrowingsDto = getBorrowingById(borrowingId)
+        return tracer.trace("payFine", () -> settleFine(borrowingId));
+    }
+
+    private String settleFine(int borrowingId) {
+        BorrowingsDto borrowingsDto = tracer.span("borrowing.find", () -> getBorrowingById(borrowingId))
                 .orElseThrow(() -> new ResourceNotFoundException("Borrowing not found"));
-        Optional<MembersDto> memberDto = memberService.getMemberById(borrowingsDto.getMember().getMemberId());
+        Optional<MembersDto> memberDto = tracer.span("member.find", () -> memberService.getMemberById(borrowingsDto.getMember().getMemberId()));
         if (!memberDto.isPresent()) {
             throw new ResourceNotFoundException("Member not found");
         }
@@ -209,9 +385,12 @@ public class BorrowingService {
 
         if (fine != null && !fine.isPaid()) {
             fine.setPaid(true);
-            notificationService.finePaidNotification(DtoToEntity(borrowingsDto));
-            fineRepository.save(fine);  // Save the updated fine
-            borrowingRepository.save(DtoToEntity(borrowingsDto));  // Save borrowing with updated fine
+            tracer.span("transaction", () -> transactionTemplate.executeWithoutResult(status -> {
+                tracer.span("fine.save", () -> fineRepository.save(fine));  // Save the updated fine
+                Borrowings savedBorrowing = tracer.span("borrowing.save", () -> borrowingRepository.save(DtoToEntity(borrowingsDto)));  // Save borrowing with updated fine
+                tracer.span("outbox.enqueue", () -> notificationOutbox.enqueue(NotificationType.PAID, savedBorrowing));
+            }));
+            finesPaid.increment();
         } else {
             throw new ResourceNotFoundException("No outstanding fine found or fine already paid");
         }
@@ -222,28 +401,21 @@ public class BorrowingService {
      * Updates the number of available copies of a book in the library.
      *
      * <p>This method increases or decreases the number of copies based on the specified operation.
-     * If there are not enough copies available for a removal operation, or if the book is not found,
-     * a {@link ResourceNotFoundException} is thrown.</p>
+     * The change is applied with a single conditional update in the database instead of a
+     * read-modify-write of the book, so there is no lost-update window between concurrent
+     * checkouts. If there are not enough copies available for a removal operation, or if the
+     * book is not found, a {@link ResourceNotFoundException} is thrown.</p>
      *
      * @param bookId         the ID of the book to update
      * @param operation      the operation to perform ("ADD" to increase, "REMOVE" to decrease)
      * @param numberOfCopies the number of copies to add or remove
      * @throws ResourceNotFoundException if the book is not found or if there are not enough copies to remove
      */
-    public void updateBookCopies(Optional<BookDto> bookDto, String operation, int numberOfCopies) {
-        if (bookDto.isPresent()) {
-            Book bookEntity = bookService.DtoToEntity(bookDto.get());
-            if (operation.equals("ADD")) {
-                bookEntity.setCopiesAvailable(bookEntity.getCopiesAvailable() + numberOfCopies);
-            } else if (operation.equals("REMOVE")) {
-                if (bookEntity.getCopiesAvailable() >= numberOfCopies) {
-                    bookEntity.setCopiesAvailable(bookEntity.getCopiesAvailable() - numberOfCopies);
-                } else {
-                    throw new ResourceNotFoundException("Not enough copies are available");
-                }
-            }
-        } else {
-            throw new ResourceNotFoundException("Book not found");
+    public void updateBookCopies(int bookId, String operation, int numberOfCopies) {
+        if (operation.equals("ADD")) {
+            bookService.releaseCopies(bookId, numberOfCopies);
+        } else if (operation.equals("REMOVE")) {
+            bookService.reserveCopies(bookId, numberOfCopies);
         }
     }
 
@@ -267,12 +439,11 @@ public class BorrowingService {
      * @param borrowing the borrowing record for which the fine is being calculated
      * @return the calculated fine amount
      */
-    private BigDecimal calculateFineAmount(Borrowings borrowing) {
+    BigDecimal calculateFineAmount(Borrowings borrowing) {
         long overdueDays = ChronoUnit.DAYS.between(
                 borrowing.getDueDate().toInstant(),
                 new Date().toInstant());
-        System.out.println("Over Due Days" + overdueDays);
-        System.out.println("Fine Amount" + (overdueDays * 10));
+        LOGGER.debug("Borrowing {} is {} days overdue, fine amount {}", borrowing.getBorrowingId(), overdueDays, overdueDays * 10);
         return BigDecimal.valueOf(overdueDays * 10); // 10 rupees per day fine
     }
 
@@ -341,11 +512,14 @@ public class BorrowingService {
     public BorrowingsDto EntityToDto(Borrowings borrowings) {
         BorrowingsDto borrowingsDto = new BorrowingsDto();
         borrowingsDto.setBorrowingId(borrowings.getBorrowingId());
-        borrowingsDto.setFine(borrowings.getFine());
+        // The fine is lazy; unwrap it so that it is serialized as a plain entity
+        borrowingsDto.setFine(Hibernate.unproxy(borrowings.getFine(), Fines.class));
         borrowingsDto.setBorrowDate(borrowings.getBorrowDate());
         borrowingsDto.setReturnDate(borrowings.getReturnDate());
         borrowingsDto.setDueDate(borrowings.getDueDate());
-        borrowingsDto.setMember(memberService.EntityToDto(borrowings.getMember()));
+        MembersDto member = memberService.EntityToDto(borrowings.getMember());
+        member.setPassword(null); // Borrowings never expose the password hash of their member
+        borrowingsDto.setMember(member);
         borrowingsDto.setBook(bookService.EntityToDto(borrowings.getBook()));
         return borrowingsDto;
     }
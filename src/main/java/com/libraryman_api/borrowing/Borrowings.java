@@ -14,19 +14,19 @@ public class Borrowings {
             generator = "borrowing_id_generator")
     @SequenceGenerator(name = "borrowing_id_generator",
             sequenceName = "borrowing_id_sequence",
-            allocationSize = 1)
+            allocationSize = 50)
     @Column(name = "borrowing_id")
     private int borrowingId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "fine_id")
     private Fines fine;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "member_id", nullable = false)
     private Members member;
 
@@ -0,0 +1,43 @@
+package com.libraryman_api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Configures bounded Caffeine caches in place of the default unbounded map-based caches.
+ *
+ * <p>Every region named in {@code libraryman.cache.specs} is created at startup with its own
+ * size or weight bound and expiry, and any other cache name gets the default specification.
+ * Caffeine admits entries with its W-TinyLFU policy, so a burst of one-off reads does not
+ * push the frequently used entries out. Regions with {@code recordStats} publish their hit,
+ * miss and eviction counts as {@code cache.*} metrics through the actuator.</p>
+ */
+@Configuration
+@EnableConfigurationProperties(CacheRegionProperties.class)
+public class CacheConfiguration {
+
+    @Bean
+    public CacheManager cacheManager(CacheRegionProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(builder(properties.getDefaultSpec()));
+        for (Map.Entry<String, String> region : properties.getSpecs().entrySet()) {
+            cacheManager.registerCustomCache(region.getKey(), builder(region.getValue()).build());
+        }
+        return cacheManager;
+    }
+
+    private static Caffeine<Object, Object> builder(String spec) {
+        Caffeine<Object, Object> builder = Caffeine.from(CaffeineSpec.parse(spec));
+        if (spec.contains("maximumWeight")) {
+            return builder.weigher(new CacheEntryWeigher());
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,31 @@
+package com.libraryman_api.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Weighs cache entries by the number of rows they hold.
+ *
+ * <p>A single object weighs 1 and a page or collection weighs 1 plus its number of
+ * elements, so a {@code maximumWeight} bound roughly limits the number of rows
+ * cached in a region, whatever the page sizes clients ask for.</p>
+ */
+public class CacheEntryWeigher implements Weigher<Object, Object> {
+
+    @Override
+    public int weigh(Object key, Object value) {
+        if (value instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (value instanceof Slice<?> slice) {
+            return 1 + slice.getNumberOfElements();
+        }
+        if (value instanceof Collection<?> collection) {
+            return 1 + collection.size();
+        }
+        return 1;
+    }
+}
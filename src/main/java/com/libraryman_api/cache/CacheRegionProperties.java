@@ -0,0 +1,44 @@
+package com.libraryman_api.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the cache regions, bound from the {@code libraryman.cache} properties.
+ *
+ * <p>Each region is described by a
+ * <a href="https://github.com/ben-manes/caffeine/wiki/Specification">Caffeine specification</a>,
+ * for example {@code maximumSize=10000,expireAfterAccess=30m,recordStats}. A region
+ * bounded with {@code maximumWeight} is weighed with {@link CacheEntryWeigher}.</p>
+ */
+@ConfigurationProperties(prefix = "libraryman.cache")
+public class CacheRegionProperties {
+
+    /**
+     * The specification of the regions that have no entry in {@link #specs}.
+     */
+    private String defaultSpec = "maximumSize=1000,expireAfterWrite=10m,recordStats";
+
+    /**
+     * The specification of each region, by cache name.
+     */
+    private Map<String, String> specs = new LinkedHashMap<>();
+
+    public String getDefaultSpec() {
+        return defaultSpec;
+    }
+
+    public void setDefaultSpec(String defaultSpec) {
+        this.defaultSpec = defaultSpec;
+    }
+
+    public Map<String, String> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, String> specs) {
+        this.specs = specs;
+    }
+}
@@ -4,21 +4,50 @@ import com.libraryman_api.notification.NotificationRepository;
 import com.libraryman_api.notification.NotificationStatus;
 import com.libraryman_api.notification.Notifications;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Unified service class for sending emails asynchronously.
  * Handles both general email sending and notifications.
+ *
+ * <p>Every email is first stored as a {@link PendingEmail}, in the transaction of the caller
+ * when there is one, so that an email requested by a committed change survives a crash. It is
+ * then delivered on the bounded {@code mailExecutor}, once the transaction commits, and its row
+ * is deleted when the message is sent. A row is due again {@code retry-delay} after it was
+ * stored or last attempted: emails rejected by a saturated executor, emails whose delivery
+ * failed and emails lost by a crash are handed to the executor again by
+ * {@link #retryPendingEmails()}, up to {@code max-attempts} delivery attempts. An email whose
+ * delivery is still queued or running is never handed over again, however long it waits: the
+ * IDs of these emails are kept in memory until their delivery ends. Messages go out over the
+ * open connections of the {@link PooledMailTransport}.</p>
  */
 @Service
 public class EmailService implements EmailSender {
@@ -27,13 +56,51 @@ public class EmailService implements EmailSender {
 
     private final NotificationRepository notificationRepository;
     private final JavaMailSender mailSender;
+    private final PooledMailTransport mailTransport;
+    private final PendingEmailRepository pendingEmailRepository;
+    private final ThreadPoolTaskExecutor mailExecutor;
+    private final Counter rejected;
+    private final Map<NotificationStatus, Counter> notifications = new EnumMap<>(NotificationStatus.class);
+    private final Map<NotificationStatus, Timer> deliveries = new EnumMap<>(NotificationStatus.class);
+    private final Duration retryDelay;
+    private final int retryBatchSize;
+    private final int maxAttempts;
+    // The pending emails handed to the executor whose delivery has not ended yet
+    private final Set<Integer> inFlight = ConcurrentHashMap.newKeySet();
 
     @Value("${spring.mail.properties.domain_name}") // Domain name from application properties
     private String domainName;
 
-    public EmailService(NotificationRepository notificationRepository, JavaMailSender mailSender) {
+    public EmailService(NotificationRepository notificationRepository, JavaMailSender mailSender,
+                        PooledMailTransport mailTransport, PendingEmailRepository pendingEmailRepository,
+                        @Qualifier("mailExecutor") ThreadPoolTaskExecutor mailExecutor,
+                        MeterRegistry meterRegistry,
+                        @Value("${libraryman.mail.retry.delay:5m}") Duration retryDelay,
+                        @Value("${libraryman.mail.retry.batch-size:100}") int retryBatchSize,
+                        @Value("${libraryman.mail.retry.max-attempts:5}") int maxAttempts) {
         this.notificationRepository = notificationRepository;
         this.mailSender = mailSender;
+        this.mailTransport = mailTransport;
+        this.pendingEmailRepository = pendingEmailRepository;
+        this.mailExecutor = mailExecutor;
+        this.rejected = Counter.builder("libraryman.mail.rejected")
+                .description("Emails rejected by the saturated mail executor and queued for a retry")
+                .register(meterRegistry);
+        for (NotificationStatus status : NotificationStatus.values()) {
+            String tag = status.name().toLowerCase(Locale.ROOT);
+            notifications.put(status, Counter.builder("libraryman.notifications")
+                    .description("Notification emails by the status recorded on their notification")
+                    .tag("status", tag)
+                    .register(meterRegistry));
+            // Latency from the submission, so that the time spent in the executor queue is included
+            deliveries.put(status, Timer.builder("libraryman.mail.delivery")
+                    .description("Time from the submission of an email until its delivery attempt completes")
+                    .tag("outcome", tag)
+                    .register(meterRegistry));
+        }
+        this.retryDelay = retryDelay;
+        this.retryBatchSize = retryBatchSize;
+        this.maxAttempts = maxAttempts;
     }
 
     /**
@@ -43,7 +110,6 @@ public class EmailService implements EmailSender {
      * @param body    email content (HTML supported)
      * @param subject subject of the email
      */
-    @Async
     public void sendEmail(String to, String body, String subject) {
         sendEmail(to, body, subject, null); // Default 'from' to null
     }
@@ -56,49 +122,132 @@ public class EmailService implements EmailSender {
      * @param subject subject of the email
      * @param from    sender's email address (overrides default if provided)
      */
-    @Async
     public void sendEmail(String to, String body, String subject, String from) {
-        try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, "utf-8");
-
-            helper.setText(body, true); // true = enable HTML content
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setFrom(from != null ? from : domainName); // Use provided sender or default domain
-
-            mailSender.send(mimeMessage);
-        } catch (MessagingException e) {
-            LOGGER.error("Failed to send email", e);
-            throw new IllegalStateException("Failed to send email", e);
-        }
+        store(new PendingEmail(to, subject, body, from, null));
     }
 
     /**
-     * Sends a notification email and updates notification status.
+     * Sends a notification email asynchronously and updates notification status.
      *
      * @param to           recipient's email
      * @param email        email content
      * @param subject      subject of the email
-     * @param notification notification entity to update status
+     * @param notification notification entity to update status; its status is left untouched if it was never saved
      */
     @Override
-    @Async
     public void send(String to, String email, String subject, Notifications notification) {
+        Integer notificationId = notification.getNotificationId() != 0 ? notification.getNotificationId() : null;
+        store(new PendingEmail(to, subject, email, null, notificationId));
+    }
+
+    /**
+     * Hands the due pending emails to the mail executor again, until it rejects one or none are left.
+     *
+     * <p>The emails still queued or being delivered are skipped. The others are due again
+     * {@code retry-delay} later before they are handed over, so that a crash leaves them to be
+     * retried.</p>
+     */
+    @Scheduled(fixedDelayString = "${libraryman.mail.retry.poll-interval:10000}")
+    public void retryPendingEmails() {
+        List<PendingEmail> batch = pendingEmailRepository.findByAvailableAtLessThanEqualOrderByPendingEmailIdAsc(
+                new Timestamp(System.currentTimeMillis()), PageRequest.of(0, retryBatchSize));
+        for (PendingEmail email : batch) {
+            if (inFlight.contains(email.getPendingEmailId())) {
+                continue;
+            }
+            email.setAvailableAt(new Timestamp(System.currentTimeMillis() + retryDelay.toMillis()));
+            PendingEmail leased = pendingEmailRepository.save(email);
+            try {
+                submit(leased);
+            } catch (TaskRejectedException e) {
+                LOGGER.debug("Mail executor still saturated, {} pending emails left for later", batch.size());
+                return;
+            }
+        }
+    }
+
+    // The row is due again after retry-delay, when it is retried unless its delivery deleted it
+    private void store(PendingEmail email) {
+        email.setAvailableAt(new Timestamp(System.currentTimeMillis() + retryDelay.toMillis()));
+        PendingEmail stored = pendingEmailRepository.save(email);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submitOrLeave(stored);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submitOrLeave(stored);
+            }
+        });
+    }
+
+    private void submitOrLeave(PendingEmail email) {
+        try {
+            submit(email);
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            LOGGER.warn("Mail executor saturated, leaving email to {} for a retry in {}", email.getRecipient(), retryDelay);
+        }
+    }
+
+    private void submit(PendingEmail email) {
+        long submittedAt = System.nanoTime();
+        if (!inFlight.add(email.getPendingEmailId())) {
+            return;
+        }
         try {
-            sendEmail(to, email, subject); // Reuse sendEmail method for notifications
+            mailExecutor.execute(() -> {
+                try {
+                    deliver(email, submittedAt);
+                } finally {
+                    inFlight.remove(email.getPendingEmailId());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(email.getPendingEmailId());
+            throw e;
+        }
+    }
 
-            // Update notification status to SENT
-            notification.setNotificationStatus(NotificationStatus.SENT);
-            notificationRepository.save(notification);
-        } catch (Exception e) {
-            LOGGER.error("Failed to send notification email", e);
+    private void deliver(PendingEmail email, long submittedAt) {
+        try {
+            MimeMessage mimeMessage = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, "utf-8");
 
-            // Update notification status to FAILED
-            notification.setNotificationStatus(NotificationStatus.FAILED);
-            notificationRepository.save(notification);
+            helper.setText(email.getBody(), true); // true = enable HTML content
+            helper.setTo(email.getRecipient());
+            helper.setSubject(email.getSubject());
+            helper.setFrom(email.getSender() != null ? email.getSender() : domainName); // Use provided sender or default domain
+
+            mailTransport.send(mimeMessage); // Reuses an open SMTP connection
+        } catch (MessagingException | RuntimeException e) {
+            recordDelivery(NotificationStatus.FAILED, submittedAt);
+            email.setAttempts(email.getAttempts() + 1);
+            if (email.getAttempts() < maxAttempts) {
+                LOGGER.warn("Failed to send email to {}, retrying in {}", email.getRecipient(), retryDelay, e);
+                email.setAvailableAt(new Timestamp(System.currentTimeMillis() + retryDelay.toMillis()));
+                pendingEmailRepository.save(email);
+                return;
+            }
+            LOGGER.error("Failed to send email to {} after {} attempts", email.getRecipient(), email.getAttempts(), e);
+            complete(email, NotificationStatus.FAILED);
+            return;
+        }
+        recordDelivery(NotificationStatus.SENT, submittedAt);
+        complete(email, NotificationStatus.SENT);
+    }
 
-            throw new IllegalStateException("Failed to send notification email", e);
+    // Deletes the row of an email that was sent or gave up on, and records the outcome on its notification
+    private void complete(PendingEmail email, NotificationStatus status) {
+        pendingEmailRepository.deleteById(email.getPendingEmailId());
+        if (email.getNotificationId() != null) {
+            notificationRepository.updateNotificationStatus(email.getNotificationId(), status);
+            notifications.get(status).increment();
         }
     }
+
+    private void recordDelivery(NotificationStatus status, long submittedAt) {
+        deliveries.get(status).record(Duration.ofNanos(System.nanoTime() - submittedAt));
+    }
 }
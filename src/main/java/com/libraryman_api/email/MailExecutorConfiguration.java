@@ -0,0 +1,48 @@
+package com.libraryman_api.email;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configures the executor that delivers emails.
+ *
+ * <p>Emails get their own bounded pool, so that a burst of emails can never occupy the
+ * threads needed elsewhere. When both the pool and its queue are full, the executor rejects
+ * the email and {@link EmailService} stores it as a {@link PendingEmail} to retry later.
+ * The actuator publishes the pool as the {@code executor.*} metrics, tagged
+ * {@code name=mailExecutor}.</p>
+ *
+ * <p>When virtual threads are enabled, on Java 21, the pool starts virtual threads in place of
+ * platform threads. It keeps its bounds: they protect the SMTP connection pool and decide when an
+ * email is stored for a retry, whatever kind of thread delivers it.</p>
+ */
+@Configuration
+public class MailExecutorConfiguration {
+
+    @Bean
+    public ThreadPoolTaskExecutor mailExecutor(@Value("${libraryman.mail.executor.core-size:2}") int coreSize,
+                                               @Value("${libraryman.mail.executor.max-size:4}") int maxSize,
+                                               @Value("${libraryman.mail.executor.queue-capacity:500}") int queueCapacity,
+                                               Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mail-");
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("mail-").getVirtualThreadFactory());
+        }
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // Emails already accepted are delivered before the application stops
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
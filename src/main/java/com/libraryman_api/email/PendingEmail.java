@@ -0,0 +1,120 @@
+package com.libraryman_api.email;
+
+import jakarta.persistence.*;
+
+import java.sql.Timestamp;
+
+/**
+ * An email that has not been sent yet.
+ *
+ * <p>A row is written for every email, in the transaction that requested it, and deleted
+ * once the email is sent or has failed {@code max-attempts} times. Rows left by a saturated
+ * executor, a failed delivery or a crash are retried by {@link EmailService}, so that
+ * emails are delayed rather than dropped.</p>
+ */
+@Entity
+@Table(name = "pending_email")
+public class PendingEmail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pending_email_id_generator")
+    @SequenceGenerator(name = "pending_email_id_generator", sequenceName = "pending_email_id_sequence", allocationSize = 50)
+    @Column(name = "pending_email_id")
+    private int pendingEmailId;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Lob
+    @Column(nullable = false)
+    private String body;
+
+    // The sender address, or null for the configured domain
+    private String sender;
+
+    // The notification whose status is updated once the email is sent, if any
+    @Column(name = "notification_id")
+    private Integer notificationId;
+
+    @Column(name = "available_at", nullable = false)
+    private Timestamp availableAt;
+
+    // The number of failed delivery attempts
+    @Column(nullable = false)
+    private int attempts;
+
+
+    public PendingEmail() {
+    }
+
+    public PendingEmail(String recipient, String subject, String body, String sender, Integer notificationId) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.sender = sender;
+        this.notificationId = notificationId;
+    }
+
+    public int getPendingEmailId() {
+        return pendingEmailId;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+
+    public Integer getNotificationId() {
+        return notificationId;
+    }
+
+    public void setNotificationId(Integer notificationId) {
+        this.notificationId = notificationId;
+    }
+
+    public Timestamp getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(Timestamp availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+}
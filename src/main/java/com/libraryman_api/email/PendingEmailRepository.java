@@ -0,0 +1,14 @@
+package com.libraryman_api.email;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public interface PendingEmailRepository extends JpaRepository<PendingEmail, Integer> {
+
+    List<PendingEmail> findByAvailableAtLessThanEqualOrderByPendingEmailIdAsc(Timestamp now, Pageable pageable);
+}
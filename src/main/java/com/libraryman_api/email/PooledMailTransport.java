@@ -0,0 +1,191 @@
+package com.libraryman_api.email;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends emails over a small pool of open SMTP connections.
+ *
+ * <p>{@link JavaMailSenderImpl#send(MimeMessage)} connects, authenticates, runs STARTTLS and
+ * disconnects for every message. This transport keeps up to {@code pool-size} authenticated
+ * connections open and sends many messages over each:</p>
+ * <ul>
+ *     <li>a connection is closed after {@code max-messages-per-connection} messages, as many
+ *     servers limit the messages accepted per session;</li>
+ *     <li>a connection left unused for {@code idle-timeout} is closed by {@link #closeIdleConnections()},
+ *     before the server drops it on its side;</li>
+ *     <li>a connection that failed is closed rather than returned to the pool.</li>
+ * </ul>
+ *
+ * <p>A connection left unused for {@code validate-after-idle} is checked with an SMTP
+ * {@code NOOP} before it is reused, in case the server dropped it. Connections reused sooner
+ * are not checked, which saves a round trip per message when emails are sent back to back;
+ * a message failing on such a connection is retried by {@link EmailService}.</p>
+ *
+ * <p>The host, port, credentials and session properties are those of the {@code spring.mail.*}
+ * configuration, read from the {@link JavaMailSenderImpl}.</p>
+ */
+@Component
+public class PooledMailTransport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledMailTransport.class);
+
+    private final JavaMailSenderImpl mailSender;
+    private final int maxMessagesPerConnection;
+    private final Duration idleTimeout;
+    private final Duration validateAfterIdle;
+    private final Duration borrowTimeout;
+    private final Semaphore permits;
+    // Most recently used first, so that the least used connections age out
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * Constructs a new {@code PooledMailTransport}.
+     *
+     * @param mailSender               the configured mail sender providing the session and server settings
+     * @param poolSize                 the maximum number of connections open at once
+     * @param maxMessagesPerConnection the number of messages after which a connection is replaced
+     * @param idleTimeout              the time after which an unused connection is closed
+     * @param validateAfterIdle        the time after which an unused connection is checked before it is reused
+     * @param borrowTimeout            the maximum time to wait for a free connection
+     */
+    public PooledMailTransport(JavaMailSenderImpl mailSender,
+                               @Value("${libraryman.mail.pool.size:4}") int poolSize,
+                               @Value("${libraryman.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                               @Value("${libraryman.mail.pool.idle-timeout:30s}") Duration idleTimeout,
+                               @Value("${libraryman.mail.pool.validate-after-idle:5s}") Duration validateAfterIdle,
+                               @Value("${libraryman.mail.pool.borrow-timeout:30s}") Duration borrowTimeout) {
+        this.mailSender = mailSender;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.idleTimeout = idleTimeout;
+        this.validateAfterIdle = validateAfterIdle;
+        this.borrowTimeout = borrowTimeout;
+        this.permits = new Semaphore(poolSize, true);
+    }
+
+    /**
+     * Sends a message over a pooled connection.
+     *
+     * @param message the message to send
+     * @throws MessagingException if the message could not be sent
+     */
+    public void send(MimeMessage message) throws MessagingException {
+        acquire();
+        PooledConnection connection = null;
+        try {
+            connection = borrow();
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+            try {
+                connection.transport().sendMessage(message, message.getAllRecipients());
+            } catch (MessagingException | RuntimeException e) {
+                close(connection);
+                connection = null;
+                throw e;
+            }
+            connection.sent++;
+            if (connection.sent >= maxMessagesPerConnection) {
+                close(connection);
+                connection = null;
+            }
+        } finally {
+            if (connection != null) {
+                connection.lastUsed = System.nanoTime();
+                idle.offerFirst(connection);
+            }
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes the connections that were not used for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${libraryman.mail.pool.idle-check-interval:10000}")
+    public void closeIdleConnections() {
+        long now = System.nanoTime();
+        Iterator<PooledConnection> connections = idle.descendingIterator();
+        while (connections.hasNext()) {
+            PooledConnection connection = connections.next();
+            if (now - connection.lastUsed >= idleTimeout.toNanos() && idle.removeLastOccurrence(connection)) {
+                close(connection);
+            }
+        }
+    }
+
+    /**
+     * Closes every idle connection, when the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    private void acquire() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("No SMTP connection became available within " + borrowTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+        }
+    }
+
+    private PooledConnection borrow() throws MessagingException {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            // isConnected() sends a NOOP, only worth its round trip once the server may have dropped the connection
+            if (System.nanoTime() - connection.lastUsed < validateAfterIdle.toNanos() || connection.transport().isConnected()) {
+                return connection;
+            }
+            close(connection);
+        }
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        return new PooledConnection(transport);
+    }
+
+    private static void close(PooledConnection connection) {
+        try {
+            connection.transport().close();
+        } catch (MessagingException e) {
+            LOGGER.debug("Failed to close SMTP connection", e);
+        }
+    }
+
+    private static final class PooledConnection {
+
+        private final Transport transport;
+        private int sent;
+        private volatile long lastUsed = System.nanoTime();
+
+        private PooledConnection(Transport transport) {
+            this.transport = transport;
+        }
+
+        private Transport transport() {
+            return transport;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.libraryman_api.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -69,4 +70,96 @@ public class GlobalExceptionHandler {
         ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
         return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * Handles {@link InvalidCursorException} exceptions. This method is
+     * triggered when an {@code InvalidCursorException} is thrown in the
+     * application. It constructs an {@link ErrorDetails} object containing the
+     * exception details and returns a {@link ResponseEntity} with an HTTP status of
+     * {@code 400 Bad Request}.
+     *
+     * @param ex      the exception that was thrown.
+     * @param request the current web request in which the exception was thrown.
+     * @return a {@link ResponseEntity} containing the {@link ErrorDetails} and an
+     * HTTP status of {@code 400 Bad Request}.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<?> invalidCursorException(InvalidCursorException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link InvalidFieldsException} exceptions. This method is
+     * triggered when an {@code InvalidFieldsException} is thrown in the
+     * application. It constructs an {@link ErrorDetails} object containing the
+     * exception details and returns a {@link ResponseEntity} with an HTTP status of
+     * {@code 400 Bad Request}.
+     *
+     * @param ex      the exception that was thrown.
+     * @param request the current web request in which the exception was thrown.
+     * @return a {@link ResponseEntity} containing the {@link ErrorDetails} and an
+     * HTTP status of {@code 400 Bad Request}.
+     */
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<?> invalidFieldsException(InvalidFieldsException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link InvalidImportException} exceptions. This method is
+     * triggered when an {@code InvalidImportException} is thrown in the
+     * application. It constructs an {@link ErrorDetails} object containing the
+     * exception details and returns a {@link ResponseEntity} with an HTTP status of
+     * {@code 400 Bad Request}.
+     *
+     * @param ex      the exception that was thrown.
+     * @param request the current web request in which the exception was thrown.
+     * @return a {@link ResponseEntity} containing the {@link ErrorDetails} and an
+     * HTTP status of {@code 400 Bad Request}.
+     */
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<?> invalidImportException(InvalidImportException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link InvalidExportFormatException} exceptions. This method is
+     * triggered when an {@code InvalidExportFormatException} is thrown in the
+     * application. It constructs an {@link ErrorDetails} object containing the
+     * exception details and returns a {@link ResponseEntity} with an HTTP status of
+     * {@code 400 Bad Request}.
+     *
+     * @param ex      the exception that was thrown.
+     * @param request the current web request in which the exception was thrown.
+     * @return a {@link ResponseEntity} containing the {@link ErrorDetails} and an
+     * HTTP status of {@code 400 Bad Request}.
+     */
+    @ExceptionHandler(InvalidExportFormatException.class)
+    public ResponseEntity<?> invalidExportFormatException(InvalidExportFormatException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link ServiceUnavailableException} exceptions. This method is
+     * triggered when a {@code ServiceUnavailableException} is thrown in the
+     * application. It constructs an {@link ErrorDetails} object containing the
+     * exception details and returns a {@link ResponseEntity} with an HTTP status of
+     * {@code 503 Service Unavailable} and a {@code Retry-After} header.
+     *
+     * @param ex      the exception that was thrown.
+     * @param request the current web request in which the exception was thrown.
+     * @return a {@link ResponseEntity} containing the {@link ErrorDetails} and an
+     * HTTP status of {@code 503 Service Unavailable}.
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<?> serviceUnavailableException(ServiceUnavailableException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(new Date(), ex.getMessage(), request.getDescription(false));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorDetails);
+    }
 }
@@ -0,0 +1,66 @@
+package com.libraryman_api.export;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configures the executor that writes streamed responses, such as the exports of {@link RowExporter}.
+ *
+ * <p>Spring MVC runs every {@code StreamingResponseBody} on this bounded pool, in place of an
+ * unbounded thread per response. When the pool and its queue are full, the export is written on
+ * the request thread itself, so new exports are slowed down rather than rejected. The actuator
+ * publishes the pool as the {@code executor.*} metrics, tagged {@code name=exportExecutor}.</p>
+ *
+ * <p>When virtual threads are enabled, on Java 21, the pool starts virtual threads, but keeps
+ * its bounds, which limit the number of exports reading from the database at once.</p>
+ */
+@Configuration
+public class ExportConfiguration implements WebMvcConfigurer {
+
+    private final int threads;
+    private final int queueCapacity;
+    private final boolean virtualThreads;
+
+    /**
+     * Constructs a new {@code ExportConfiguration}.
+     *
+     * @param threads       the number of responses written at once
+     * @param queueCapacity the number of responses waiting for a thread before they are written on the request thread
+     * @param environment   the environment telling whether virtual threads are enabled
+     */
+    public ExportConfiguration(@Value("${libraryman.export.executor.threads:4}") int threads,
+                               @Value("${libraryman.export.executor.queue-capacity:16}") int queueCapacity,
+                               Environment environment) {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor exportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("export-");
+        if (virtualThreads) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("export-").getVirtualThreadFactory());
+        }
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportExecutor());
+    }
+}
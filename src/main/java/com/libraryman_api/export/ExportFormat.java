@@ -0,0 +1,52 @@
+package com.libraryman_api.export;
+
+import com.libraryman_api.exception.InvalidExportFormatException;
+import org.springframework.http.MediaType;
+
+/**
+ * The formats rows can be exported in.
+ */
+public enum ExportFormat {
+
+    /**
+     * Comma-separated values, with a header naming the fields.
+     */
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv"),
+
+    /**
+     * Newline-delimited JSON, one object per row.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the format with the given name, ignoring case.
+     *
+     * @param name the name of the format, {@code csv} or {@code ndjson}
+     * @return the format
+     * @throws InvalidExportFormatException if no format has this name
+     */
+    public static ExportFormat of(String name) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new InvalidExportFormatException("The specified 'format' value is invalid; use 'csv' or 'ndjson'.");
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,153 @@
+package com.libraryman_api.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libraryman_api.pagination.FieldSet;
+import com.libraryman_api.pagination.KeysetQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every row of an entity as a CSV or NDJSON download.
+ *
+ * <p>The rows are read with {@link KeysetQuery#forEachSlice} in slices of {@code slice-size}
+ * rows and written as soon as each slice is read, so the heap holds one slice whatever the
+ * size of the table, and no transaction stays open while the rows are sent. Each slice is
+ * flushed to the client before the next one is read: when the client reads slowly, the
+ * writes block and no further rows are read from the database.</p>
+ *
+ * <p>The response is compressed with gzip when the client accepts it, and offered as an
+ * attachment named after the export.</p>
+ */
+@Component
+public class RowExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final KeysetQuery keysetQuery;
+    private final ObjectMapper objectMapper;
+    private final int sliceSize;
+
+    /**
+     * Constructs a new {@code RowExporter}.
+     *
+     * @param keysetQuery  the helper the rows are read with
+     * @param objectMapper the mapper the NDJSON rows are written with
+     * @param sliceSize    the number of rows read from the database at once
+     */
+    public RowExporter(KeysetQuery keysetQuery, ObjectMapper objectMapper,
+                       @Value("${libraryman.export.slice-size:1000}") int sliceSize) {
+        this.keysetQuery = keysetQuery;
+        this.objectMapper = objectMapper;
+        this.sliceSize = sliceSize;
+    }
+
+    /**
+     * Returns a response streaming every row of an entity, in ID order.
+     *
+     * @param name           the name of the export, used for the file name of the attachment
+     * @param entityType     the entity class
+     * @param idAttribute    the name of the integer ID attribute of the entity
+     * @param fields         the fields exported for each row, in the order of the CSV columns
+     * @param format         the format of the rows
+     * @param acceptEncoding the {@code Accept-Encoding} header of the request, or {@code null}
+     * @return the response, whose body is written once the handler returns
+     */
+    public ResponseEntity<StreamingResponseBody> export(String name, Class<?> entityType, String idAttribute,
+                                                        FieldSet fields, ExportFormat format, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = output -> {
+            OutputStream target = gzip ? new GZIPOutputStream(output, BUFFER_SIZE, true) : output;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+            if (format == ExportFormat.CSV) {
+                writeCsvRecord(writer, fields.paths());
+            }
+            keysetQuery.forEachSlice(entityType, idAttribute, fields, sliceSize, rows -> {
+                for (Map<String, Object> row : rows) {
+                    if (format == ExportFormat.CSV) {
+                        writeCsvRecord(writer, fields.paths().stream().map(path -> csvValue(row, path)).toList());
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(row));
+                        writer.write('\n');
+                    }
+                }
+                // Hands the slice to the client, blocking while it is slower than the database
+                writer.flush();
+            });
+            writer.flush();
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String csvValue(Map<String, Object> row, String path) {
+        Object value = row;
+        for (String part : path.split("\\.")) {
+            value = value == null ? null : ((Map<String, Object>) value).get(part);
+        }
+        if (value instanceof Date date) {
+            // Also covers java.sql.Date, whose toInstant() is unsupported
+            return Instant.ofEpochMilli(date.getTime()).toString();
+        }
+        return value == null ? "" : value.toString();
+    }
+
+    private static void writeCsvRecord(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
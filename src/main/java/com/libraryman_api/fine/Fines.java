@@ -11,7 +11,7 @@ public class Fines {
             generator = "fine_id_generator")
     @SequenceGenerator(name = "fine_id_generator",
             sequenceName = "fine_id_sequence",
-            allocationSize = 1)
+            allocationSize = 20)
     @Column(name = "fine_id")
     private int fineId;
 
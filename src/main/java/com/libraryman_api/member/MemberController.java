@@ -4,15 +4,19 @@ import com.libraryman_api.exception.ResourceNotFoundException;
 import com.libraryman_api.member.dto.MembersDto;
 import com.libraryman_api.member.dto.UpdateMembersDto;
 import com.libraryman_api.member.dto.UpdatePasswordDto;
+import com.libraryman_api.pagination.KeysetSlice;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * REST controller for managing library members.
  * This controller provides endpoints for performing CRUD operations on members.
@@ -38,14 +42,21 @@ public class MemberController {
      * @param pageable contains pagination information (page number, size, and sorting).
      * @param sortBy   (optional) the field by which to sort the results.
      * @param sortDir  (optional) the direction of sorting (asc or desc). Defaults to ascending.
-     * @return a {@link Page} of {@link Members} representing all members in the library.
+     * @param cursor   (optional) switches to keyset pagination: empty for the first slice, then the
+     *                 {@code nextCursor} of the previous response. The page number is then ignored and
+     *                 no total count is computed.
+     * @param fields   (optional) a sparse fieldset, such as {@code fields=name,email}: only these fields are
+     *                 selected and returned for each row.
+     * @return a {@link Page}, or a {@link KeysetSlice} when a cursor is given, of {@link Members} representing all members in the library.
      * The results are sorted by name by default and limited to 5 members per page.
      */
     @GetMapping
     @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
-    public Page<MembersDto> getAllMembers(@PageableDefault(page = 0, size = 5, sort = "name") Pageable pageable,
-                                          @RequestParam(required = false) String sortBy,
-                                          @RequestParam(required = false) String sortDir) {
+    public Slice<?> getAllMembers(@PageableDefault(page = 0, size = 5, sort = "name") Pageable pageable,
+                                  @RequestParam(required = false) String sortBy,
+                                  @RequestParam(required = false) String sortDir,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(required = false) List<String> fields) {
 
         // Adjust the pageable based on dynamic sorting parameters
         if (sortBy != null && !sortBy.isEmpty()) {
@@ -58,6 +69,12 @@ public class MemberController {
             pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(direction, sortBy));
         }
 
+        if (fields != null) {
+            return memberService.getAllMembers(pageable, cursor, fields);
+        }
+        if (cursor != null) {
+            return memberService.getAllMembers(pageable, cursor);
+        }
         return memberService.getAllMembers(pageable);
     }
 
@@ -66,13 +83,15 @@ public class MemberController {
      * If the member is not found, a {@link ResourceNotFoundException} is thrown.
      *
      * @param id the ID of the member to retrieve
-     * @return a {@link ResponseEntity} containing the found {@link Members} object
+     * @return a {@link ResponseEntity} containing the found {@link Members} object, with the version of the member
+     * as its {@code ETag}. A request whose {@code If-None-Match} holds this tag is answered {@code 304 Not Modified},
+     * without a body.
      */
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
     public ResponseEntity<MembersDto> getMemberById(@PathVariable int id) {
         return memberService.getMemberById(id)
-                .map(ResponseEntity::ok)
+                .map(member -> ResponseEntity.ok().eTag(Integer.toString(member.getVersion())).body(member))
                 .orElseThrow(() -> new ResourceNotFoundException("Member not found"));
     }
 
@@ -1,6 +1,8 @@
 package com.libraryman_api.member;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,6 +14,9 @@ public interface MemberRepository extends JpaRepository<Members, Integer> {
 
     Optional<Members> findByUsername(String username);
 
+    @Query("SELECT m.credentialsVersion FROM Members m WHERE m.memberId = :memberId")
+    Optional<Integer> findCredentialsVersionByMemberId(@Param("memberId") int memberId);
+
 /**
  * SELECT SUM(amount) AS totalFines
  * FROM fines
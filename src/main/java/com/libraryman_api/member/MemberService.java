@@ -1,5 +1,7 @@
 package com.libraryman_api.member;
 
+import com.libraryman_api.exception.InvalidCursorException;
+import com.libraryman_api.exception.InvalidFieldsException;
 import com.libraryman_api.exception.InvalidPasswordException;
 import com.libraryman_api.exception.InvalidSortFieldException;
 import com.libraryman_api.exception.ResourceNotFoundException;
@@ -7,15 +9,25 @@ import com.libraryman_api.member.dto.MembersDto;
 import com.libraryman_api.member.dto.UpdateMembersDto;
 import com.libraryman_api.member.dto.UpdatePasswordDto;
 import com.libraryman_api.notification.NotificationService;
+import com.libraryman_api.pagination.FieldSet;
+import com.libraryman_api.pagination.KeysetQuery;
+import com.libraryman_api.pagination.KeysetSlice;
+import com.libraryman_api.pagination.ProjectionQuery;
 import com.libraryman_api.security.config.PasswordEncoder;
+import com.libraryman_api.security.services.CustomUserDetailsService;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 
 /**
@@ -36,20 +48,34 @@ import java.util.Optional;
 @Service
 public class MemberService {
 
+    /**
+     * The fields that can be requested with the {@code fields} parameter of the members listing.
+     */
+    public static final Set<String> LIST_FIELDS = Set.of("memberId", "name", "username", "email", "role", "membershipDate");
+
     private final MemberRepository memberRepository;
     private final NotificationService notificationService;
     private final PasswordEncoder passwordEncoder;
+    private final KeysetQuery keysetQuery;
+    private final ProjectionQuery projectionQuery;
+    private final CustomUserDetailsService userDetailsService;
 
     /**
      * Constructs a new {@code MemberService} with the specified repositories and services.
      *
      * @param memberRepository    the repository for managing member records
      * @param notificationService the service for sending notifications related to member activities
+     * @param keysetQuery         the helper used for cursor-based listings
+     * @param projectionQuery     the helper used for listings with sparse fieldsets
+     * @param userDetailsService  the service whose cached principals are evicted when a member changes
      */
-    public MemberService(MemberRepository memberRepository, NotificationService notificationService, PasswordEncoder passwordEncoder) {
+    public MemberService(MemberRepository memberRepository, NotificationService notificationService, PasswordEncoder passwordEncoder, KeysetQuery keysetQuery, ProjectionQuery projectionQuery, CustomUserDetailsService userDetailsService) {
         this.memberRepository = memberRepository;
         this.notificationService = notificationService;
         this.passwordEncoder = passwordEncoder;
+        this.keysetQuery = keysetQuery;
+        this.projectionQuery = projectionQuery;
+        this.userDetailsService = userDetailsService;
     }
 
     /**
@@ -68,6 +94,44 @@ public class MemberService {
         }
     }
 
+    /**
+     * Retrieves a slice of all members using keyset pagination.
+     *
+     * <p>Unlike {@link #getAllMembers(Pageable)}, no count query is run and the slice is
+     * located by the cursor instead of an offset, so every slice costs the same.</p>
+     *
+     * @param pageable the slice size and sort; the page number is ignored
+     * @param cursor   the cursor returned with the previous slice, or empty for the first slice
+     * @return a {@link KeysetSlice} of {@link MembersDto} with the cursor of the next slice
+     * @throws InvalidSortFieldException if an invalid sortBy field is specified
+     * @throws InvalidCursorException    if the cursor is invalid or was issued for another sort
+     */
+    public KeysetSlice<MembersDto> getAllMembers(Pageable pageable, String cursor) {
+        return keysetQuery.find(Members.class, "memberId", pageable, cursor).map(this::EntityToDto);
+    }
+
+    /**
+     * Retrieves a page, or a keyset slice when a cursor is given, of all members holding only the requested fields.
+     *
+     * <p>Only the requested columns are selected, so no entity is loaded and no DTO is built.
+     * The password is never exposed.</p>
+     *
+     * @param pageable the pagination information, including the page number and size
+     * @param cursor   the cursor returned with the previous slice, or {@code null} for offset pagination
+     * @param fields   the requested fields, out of {@link #LIST_FIELDS}
+     * @return a {@link Slice} of rows holding the requested fields
+     * @throws InvalidFieldsException    if a field is not one of {@link #LIST_FIELDS}
+     * @throws InvalidSortFieldException if an invalid sortBy field is specified
+     * @throws InvalidCursorException    if the cursor is invalid or was issued for another sort
+     */
+    public Slice<Map<String, Object>> getAllMembers(Pageable pageable, String cursor, List<String> fields) {
+        FieldSet fieldSet = FieldSet.of(fields, LIST_FIELDS);
+        if (cursor != null) {
+            return keysetQuery.find(Members.class, "memberId", pageable, cursor, fieldSet);
+        }
+        return projectionQuery.findPage(Members.class, pageable, fieldSet);
+    }
+
     /**
      * Retrieves a member record by its ID.
      *
@@ -117,10 +181,16 @@ public class MemberService {
     public MembersDto updateMember(int memberId, UpdateMembersDto membersDtoDetails) {
         Members member = memberRepository.findById(memberId)
                 .orElseThrow(() -> new ResourceNotFoundException("Member not found"));
+        String previousUsername = member.getUsername();
+        if (!Objects.equals(previousUsername, membersDtoDetails.getUsername())) {
+            // Revoke the tokens issued for the previous username
+            member.setCredentialsVersion(member.getCredentialsVersion() + 1);
+        }
         member.setName(membersDtoDetails.getName());
         member.setUsername(membersDtoDetails.getUsername());
         member.setEmail(membersDtoDetails.getEmail());
         member = memberRepository.save(member);
+        userDetailsService.evictUser(memberId, previousUsername);
         if (member != null)
             notificationService.accountDetailsUpdateNotification(member);
         return EntityToDto(member);
@@ -146,6 +216,7 @@ public class MemberService {
 
         notificationService.accountDeletionNotification(member);
         memberRepository.delete(member);
+        userDetailsService.evictUser(memberId, member.getUsername());
     }
 
     /**
@@ -178,7 +249,9 @@ public class MemberService {
         }
 
         member.setPassword(passwordEncoder.bCryptPasswordEncoder().encode(updatePasswordDto.getNewPassword()));
+        member.setCredentialsVersion(member.getCredentialsVersion() + 1);
         memberRepository.save(member);
+        userDetailsService.evictUser(memberId, member.getUsername());
     }
 
     /**
@@ -223,6 +296,7 @@ public class MemberService {
         membersDto.setEmail(members.getEmail());
         membersDto.setPassword(members.getPassword());
         membersDto.setMembershipDate(members.getMembershipDate());
+        membersDto.setVersion(members.getVersion());
         return membersDto;
     }
 }
\ No newline at end of file
@@ -18,7 +18,7 @@ public class Members implements UserDetails {
             generator = "member_id_generator")
     @SequenceGenerator(name = "member_id_generator",
             sequenceName = "member_id_sequence",
-            allocationSize = 1)
+            allocationSize = 20)
     @Column(name = "member_id")
     private int memberId;
 
@@ -41,6 +41,15 @@ public class Members implements UserDetails {
     @Column(name = "membership_date")
     private Date membershipDate;
 
+    // Incremented whenever the username or password changes, which revokes the tokens issued before
+    @Column(name = "credentials_version", nullable = false)
+    private int credentialsVersion;
+
+    // Incremented by Hibernate on every update; the entity tag of the member
+    @Version
+    @Column(nullable = false)
+    private int version;
+
 
     public Members() {
     }
@@ -101,6 +110,18 @@ public class Members implements UserDetails {
         this.membershipDate = membershipDate;
     }
 
+    public int getCredentialsVersion() {
+        return credentialsVersion;
+    }
+
+    public void setCredentialsVersion(int credentialsVersion) {
+        this.credentialsVersion = credentialsVersion;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -1,5 +1,6 @@
 package com.libraryman_api.member.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.libraryman_api.member.Role;
 
 import java.util.Date;
@@ -13,6 +14,8 @@ public class MembersDto {
     private String password;
     private Role role;
     private Date membershipDate;
+    @JsonIgnore
+    private int version;
 
     public MembersDto(int memberId, String name, String username, String email, String password, Role role, Date membershipDate) {
         this.memberId = memberId;
@@ -83,6 +86,19 @@ public class MembersDto {
         this.membershipDate = membershipDate;
     }
 
+    /**
+     * Returns the version of the row the DTO was read from, sent as its entity tag rather than in the body.
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "MembersDto{" +
@@ -9,6 +9,8 @@ import java.util.regex.Pattern;
 @Service
 public class NewsletterService {
 
+    private static final Pattern EMAIL = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+
     private final NewsletterSubscriberRepository subscriberRepository;
     private final EmailService emailService;
 
@@ -53,9 +55,8 @@ public class NewsletterService {
         return "You have successfully unsubscribed!";
     }
 
-    private boolean isValidEmail(String email) {
-        String emailRegex = "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
-        return Pattern.compile(emailRegex).matcher(email).matches();
+    boolean isValidEmail(String email) {
+        return EMAIL.matcher(email).matches();
     }
 
     private void sendSubscriptionEmail(String email, String token) {
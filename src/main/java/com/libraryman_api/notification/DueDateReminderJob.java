@@ -0,0 +1,106 @@
+package com.libraryman_api.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Queues the reminders for the books due within two days.
+ *
+ * <p>The due borrowings are read in chunks of {@code chunk-size} IDs, with keyset pagination
+ * on the borrowing ID, so the job never holds more than one chunk in memory however many loans
+ * are due. Each chunk is enqueued in the outbox in a single transaction; the
+ * {@link NotificationOutboxDispatcher} then loads, renders and sends the reminders in batches,
+ * and the emails are delivered in parallel on the mail executor.</p>
+ */
+@Component
+public class DueDateReminderJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DueDateReminderJob.class);
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationOutbox notificationOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Timer runTimer;
+    private final Counter enqueued;
+
+    /**
+     * Constructs a new {@code DueDateReminderJob}.
+     *
+     * @param notificationRepository the repository the due borrowings are read from
+     * @param notificationOutbox     the outbox the reminders are queued in
+     * @param transactionTemplate    the template running each chunk in a transaction
+     * @param meterRegistry          the registry the job metrics are published to
+     * @param chunkSize              the number of borrowings read and enqueued at once
+     */
+    public DueDateReminderJob(NotificationRepository notificationRepository,
+                              NotificationOutbox notificationOutbox,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${libraryman.notifications.reminders.chunk-size:500}") int chunkSize) {
+        this.notificationRepository = notificationRepository;
+        this.notificationOutbox = notificationOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.runTimer = Timer.builder("libraryman.notifications.reminders.run")
+                .description("Duration of the due date reminder job")
+                .register(meterRegistry);
+        this.enqueued = Counter.builder("libraryman.notifications.reminders.enqueued")
+                .description("Due date reminders queued in the outbox")
+                .register(meterRegistry);
+    }
+
+    // Scheduled method to send reminders for books due in 2 days
+    @Scheduled(cron = "${libraryman.notifications.reminders.cron:0 0 10 * * ?}")  // Runs every day at 10 AM by default
+    public void sendDueDateReminders() {
+        Calendar calendar = Calendar.getInstance();
+        Date today = calendar.getTime();
+        calendar.add(Calendar.DAY_OF_YEAR, 2);
+        Date twoDaysFromNow = calendar.getTime();
+
+        long start = System.nanoTime();
+        int total = enqueueReminders(today, twoDaysFromNow);
+        long elapsed = System.nanoTime() - start;
+        runTimer.record(Duration.ofNanos(elapsed));
+        double seconds = elapsed / 1e9;
+        LOGGER.info("Queued {} due date reminders in {} s ({} per second)",
+                total, String.format("%.1f", seconds), Math.round(total / Math.max(seconds, 0.001)));
+    }
+
+    private int enqueueReminders(Date today, Date twoDaysFromNow) {
+        int total = 0;
+        int afterId = 0;
+        while (true) {
+            int lastId = afterId;
+            List<Integer> chunk = transactionTemplate.execute(status -> {
+                List<Integer> ids = notificationRepository.findBorrowingIdsDueInDays(
+                        today, twoDaysFromNow, lastId, PageRequest.of(0, chunkSize));
+                notificationOutbox.enqueueAll(NotificationType.REMINDER, ids);
+                return ids;
+            });
+            if (chunk == null || chunk.isEmpty()) {
+                return total;
+            }
+            total += chunk.size();
+            enqueued.increment(chunk.size());
+            afterId = chunk.get(chunk.size() - 1);
+            LOGGER.debug("Queued {} due date reminders so far", total);
+            if (chunk.size() < chunkSize) {
+                return total;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.libraryman_api.notification;
+
+import com.libraryman_api.borrowing.Borrowings;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+
+/**
+ * Records borrowing notifications in the outbox.
+ *
+ * <p>Enqueuing only inserts a small {@link OutboxNotification} row, in the transaction of
+ * the caller when there is one, so a notification is recorded if and only if the change it
+ * reports is committed. Rendering and sending happen later, in the
+ * {@link NotificationOutboxDispatcher}, outside of the checkout and return paths.</p>
+ */
+@Service
+public class NotificationOutbox {
+
+    private final OutboxNotificationRepository outboxRepository;
+
+    /**
+     * Constructs a new {@code NotificationOutbox}.
+     *
+     * @param outboxRepository the repository storing the outbox rows
+     */
+    public NotificationOutbox(OutboxNotificationRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    /**
+     * Enqueues a notification about a borrowing.
+     *
+     * @param notificationType the type of notification; one of {@code BORROW}, {@code REMINDER},
+     *                         {@code FINE}, {@code PAID} and {@code RETURNED}
+     * @param borrowing        the saved borrowing the notification is about
+     */
+    public void enqueue(NotificationType notificationType, Borrowings borrowing) {
+        outboxRepository.save(new OutboxNotification(notificationType, borrowing.getBorrowingId(),
+                new Timestamp(System.currentTimeMillis())));
+    }
+
+    /**
+     * Enqueues one notification of the same type for each of the given borrowings, in a single batch.
+     *
+     * @param notificationType the type of notification
+     * @param borrowingIds     the IDs of the saved borrowings the notifications are about
+     */
+    public void enqueueAll(NotificationType notificationType, Collection<Integer> borrowingIds) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        outboxRepository.saveAll(borrowingIds.stream()
+                .map(borrowingId -> new OutboxNotification(notificationType, borrowingId, now))
+                .toList());
+    }
+}
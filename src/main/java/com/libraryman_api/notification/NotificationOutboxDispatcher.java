@@ -0,0 +1,162 @@
+package com.libraryman_api.notification;
+
+import com.libraryman_api.borrowing.BorrowingRepository;
+import com.libraryman_api.borrowing.Borrowings;
+import com.libraryman_api.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the notification outbox in the background.
+ *
+ * <p>Due rows are claimed in batches: a short transaction locks them and moves their
+ * {@code available_at} forward by {@code retry-delay}, so that they are skipped by other
+ * dispatchers, and picked up again if this one stops before they are dispatched. Every row
+ * is then dispatched in its own transaction: it is handed to the matching
+ * {@link NotificationService} method, which renders the message, records the
+ * {@link Notifications} row and queues the email through the
+ * {@link com.libraryman_api.email.EmailSender}, and the outbox row is deleted. A row that
+ * fails rolls back alone; its attempt is recorded in a separate transaction and it is
+ * retried after {@code retry-delay}, up to {@code max-attempts} times.</p>
+ *
+ * <p>Each batch that is not empty is traced by the {@link Tracer} as a {@code notificationBatch}.</p>
+ */
+@Component
+public class NotificationOutboxDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationOutboxDispatcher.class);
+
+    private final OutboxNotificationRepository outboxRepository;
+    private final BorrowingRepository borrowingRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final Tracer tracer;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+
+    /**
+     * Constructs a new {@code NotificationOutboxDispatcher}.
+     *
+     * @param outboxRepository    the repository storing the outbox rows
+     * @param borrowingRepository the repository the borrowings of a batch are loaded from
+     * @param notificationService the service rendering and sending the notifications
+     * @param transactionTemplate the template running each batch in a transaction
+     * @param tracer              the tracer timing the stages of each batch
+     * @param batchSize           the maximum number of rows dispatched per transaction
+     * @param maxAttempts         the number of attempts after which a failing row is dropped
+     * @param retryDelay          the delay before a failed row is attempted again
+     */
+    public NotificationOutboxDispatcher(OutboxNotificationRepository outboxRepository,
+                                        BorrowingRepository borrowingRepository,
+                                        NotificationService notificationService,
+                                        TransactionTemplate transactionTemplate,
+                                        Tracer tracer,
+                                        @Value("${libraryman.notifications.outbox.batch-size:100}") int batchSize,
+                                        @Value("${libraryman.notifications.outbox.max-attempts:5}") int maxAttempts,
+                                        @Value("${libraryman.notifications.outbox.retry-delay:60s}") Duration retryDelay) {
+        this.outboxRepository = outboxRepository;
+        this.borrowingRepository = borrowingRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.tracer = tracer;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Dispatches the due rows, batch after batch, until the outbox has none left.
+     */
+    @Scheduled(fixedDelayString = "${libraryman.notifications.outbox.poll-interval:1000}")
+    public void dispatch() {
+        boolean fullBatch = true;
+        while (fullBatch) {
+            Claim claim = transactionTemplate.execute(status -> claimBatch());
+            if (claim.batch().isEmpty()) {
+                return;
+            }
+            tracer.trace("notificationBatch", () -> {
+                dispatchBatch(claim);
+                return null;
+            });
+            fullBatch = claim.batch().size() == batchSize;
+        }
+    }
+
+    // Leases the due rows for retry-delay, so that another dispatcher skips them until they are
+    // dispatched, or picks them up again if this one stops before dispatching them
+    private Claim claimBatch() {
+        long now = System.currentTimeMillis();
+        List<OutboxNotification> batch = outboxRepository.findDueForDispatch(new Timestamp(now), PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return new Claim(batch, Map.of());
+        }
+        batch.forEach(entry -> entry.setAvailableAt(new Timestamp(now + retryDelay.toMillis())));
+        Map<Integer, Borrowings> borrowings = borrowingRepository.findAllWithDetailsByBorrowingIdIn(
+                        batch.stream().map(OutboxNotification::getBorrowingId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(Borrowings::getBorrowingId, Function.identity()));
+        return new Claim(batch, borrowings);
+    }
+
+    // Each row is dispatched in its own transaction, so that a failing row rolls back alone
+    private void dispatchBatch(Claim claim) {
+        for (OutboxNotification entry : claim.batch()) {
+            Borrowings borrowing = claim.borrowings().get(entry.getBorrowingId());
+            if (borrowing == null) {
+                LOGGER.warn("Dropping {} notification of missing borrowing {}", entry.getNotificationType(), entry.getBorrowingId());
+                outboxRepository.delete(entry);
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    deliver(entry.getNotificationType(), borrowing);
+                    outboxRepository.delete(entry);
+                });
+            } catch (RuntimeException e) {
+                transactionTemplate.executeWithoutResult(status -> retryLater(entry, e));
+            }
+        }
+    }
+
+    private void deliver(NotificationType notificationType, Borrowings borrowing) {
+        switch (notificationType) {
+            case BORROW -> notificationService.borrowBookNotification(borrowing);
+            case REMINDER -> notificationService.reminderNotification(borrowing);
+            case FINE -> notificationService.fineImposedNotification(borrowing);
+            case PAID -> notificationService.finePaidNotification(borrowing);
+            case RETURNED -> notificationService.bookReturnedNotification(borrowing);
+            default -> throw new IllegalArgumentException("Unsupported outbox notification type: " + notificationType);
+        }
+    }
+
+    private void retryLater(OutboxNotification entry, RuntimeException e) {
+        entry.setAttempts(entry.getAttempts() + 1);
+        if (entry.getAttempts() >= maxAttempts) {
+            LOGGER.error("Dropping {} notification of borrowing {} after {} attempts",
+                    entry.getNotificationType(), entry.getBorrowingId(), entry.getAttempts(), e);
+            outboxRepository.delete(entry);
+            return;
+        }
+        LOGGER.warn("Failed to dispatch {} notification of borrowing {}, retrying in {}",
+                entry.getNotificationType(), entry.getBorrowingId(), retryDelay, e);
+        entry.setAvailableAt(new Timestamp(System.currentTimeMillis() + retryDelay.toMillis()));
+        outboxRepository.save(entry);
+    }
+
+    private record Claim(List<OutboxNotification> batch, Map<Integer, Borrowings> borrowings) {
+    }
+}
@@ -1,10 +1,12 @@
 package com.libraryman_api.notification;
 
-import com.libraryman_api.borrowing.Borrowings;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.List;
@@ -13,7 +15,16 @@ import java.util.List;
 public interface NotificationRepository extends JpaRepository<Notifications, Integer> {
     List<Notifications> findByMember_memberId(int memberId);
 
-    @Query("SELECT b FROM Borrowings b WHERE b.dueDate BETWEEN :today AND :twoDaysFromNow")
-    List<Borrowings> findBorrowingsDueInDays(@Param("today") Date today, @Param("twoDaysFromNow") Date twoDaysFromNow);
+    // Reads IDs only, one keyset chunk at a time; the inner join skips borrowings whose member is gone
+    @Query("SELECT b.borrowingId FROM Borrowings b JOIN b.member m " +
+            "WHERE b.dueDate BETWEEN :today AND :twoDaysFromNow AND b.borrowingId > :afterId ORDER BY b.borrowingId")
+    List<Integer> findBorrowingIdsDueInDays(@Param("today") Date today, @Param("twoDaysFromNow") Date twoDaysFromNow,
+                                            @Param("afterId") int afterId, Pageable pageable);
+
+    // Updates the status alone, so that the email service never writes back a stale copy of the notification
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notifications n SET n.notificationStatus = :status WHERE n.notificationId = :notificationId")
+    int updateNotificationStatus(@Param("notificationId") int notificationId, @Param("status") NotificationStatus status);
 }
 
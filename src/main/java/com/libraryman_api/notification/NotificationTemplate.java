@@ -0,0 +1,84 @@
+package com.libraryman_api.notification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A text template with {@code {{name}}} placeholders, parsed once into segments.
+ *
+ * <p>The source is split into the literal text between placeholders and the index of the
+ * value each placeholder stands for, so rendering only appends the segments in order, without
+ * searching the text or building intermediate strings.</p>
+ */
+final class NotificationTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    // literals[i] is followed by the value at parameters[i]; the last literal closes the template
+    private final String[] literals;
+    private final int[] parameters;
+    private final int length;
+
+    private NotificationTemplate(String[] literals, int[] parameters) {
+        this.literals = literals;
+        this.parameters = parameters;
+        this.length = Arrays.stream(literals).mapToInt(String::length).sum();
+    }
+
+    /**
+     * Parses a template.
+     *
+     * @param source         the template text
+     * @param parameterNames the names of the placeholders, in the order their values are passed to {@link #renderTo}
+     * @return the parsed template
+     * @throws IllegalArgumentException if the template uses an undeclared placeholder or is not closed
+     */
+    static NotificationTemplate parse(String source, String... parameterNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> parameters = new ArrayList<>();
+        int position = 0;
+        int open;
+        while ((open = source.indexOf(OPEN, position)) >= 0) {
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at index " + open);
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            int parameter = Arrays.asList(parameterNames).indexOf(name);
+            if (parameter < 0) {
+                throw new IllegalArgumentException("Unknown placeholder '" + name + "', expected one of " + Arrays.toString(parameterNames));
+            }
+            literals.add(source.substring(position, open));
+            parameters.add(parameter);
+            position = close + CLOSE.length();
+        }
+        literals.add(source.substring(position));
+        return new NotificationTemplate(literals.toArray(String[]::new),
+                parameters.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Appends the rendered template to a buffer.
+     *
+     * @param out    the buffer to append to
+     * @param values the placeholder values, in the order of the parameter names given to {@link #parse}
+     */
+    void renderTo(StringBuilder out, Object... values) {
+        out.ensureCapacity(out.length() + estimatedLength());
+        for (int i = 0; i < parameters.length; i++) {
+            out.append(literals[i]).append(values[parameters[i]]);
+        }
+        out.append(literals[literals.length - 1]);
+    }
+
+    /**
+     * Returns the expected length of a rendering: the literal text, plus 64 characters per placeholder.
+     *
+     * @return the expected length
+     */
+    int estimatedLength() {
+        return length + 64 * parameters.length;
+    }
+}
@@ -0,0 +1,137 @@
+package com.libraryman_api.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders the notification messages and the HTML email around them.
+ *
+ * <p>The templates are read from {@code templates/notifications/} on the classpath and parsed
+ * once at startup: one message template per {@link NotificationType}, named after the type in
+ * lower case, and {@code layout.html}, the email layout. A template with an unknown placeholder
+ * fails the startup rather than the first notification of its type. Rendering appends to a
+ * buffer reused by each thread. With {@code spring.threads.virtual.enabled}, each rendering
+ * starts on a thread of its own, which would never reuse its buffer, so it appends to a new
+ * buffer sized for the template instead.</p>
+ */
+@Component
+public class NotificationTemplates {
+
+    /**
+     * Formats a date, as in {@code 05 March 2025}.
+     */
+    public static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd MMMM yyyy");
+
+    /**
+     * Formats a date and time, as in {@code 05 March 2025 14:30}.
+     */
+    public static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd MMMM yyyy HH:mm");
+
+    private static final String LOCATION = "templates/notifications/";
+
+    // The placeholders of each message template, in the order their values are passed to message()
+    private static final Map<NotificationType, String[]> PARAMETERS = new EnumMap<>(Map.of(
+            NotificationType.BORROW, new String[]{"title", "borrowDate", "dueDate"},
+            NotificationType.REMINDER, new String[]{"title", "dueDate"},
+            NotificationType.PAID, new String[]{"amount", "title"},
+            NotificationType.FINE, new String[]{"title", "dueDate", "amount"},
+            NotificationType.RETURNED, new String[]{"title", "returnDate"}
+    ));
+
+    // Buffers larger than this are not kept for reuse, so that one large email does not pin memory
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    private final Map<NotificationType, NotificationTemplate> messages = new EnumMap<>(NotificationType.class);
+    private final NotificationTemplate layout;
+    private final boolean virtualThreads;
+
+    /**
+     * Constructs a new {@code NotificationTemplates}, reading and parsing every template.
+     *
+     * @param virtualThreads whether the application runs on virtual threads
+     * @throws UncheckedIOException     if a template cannot be read
+     * @throws IllegalArgumentException if a template uses an unknown placeholder
+     */
+    public NotificationTemplates(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        for (NotificationType type : NotificationType.values()) {
+            messages.put(type, NotificationTemplate.parse(read(type.name().toLowerCase(Locale.ROOT) + ".html"),
+                    PARAMETERS.getOrDefault(type, new String[0])));
+        }
+        layout = NotificationTemplate.parse(read("layout.html"), "subject", "memberName", "message");
+    }
+
+    /**
+     * Renders the message of a notification.
+     *
+     * @param type   the type of notification
+     * @param values the placeholder values of the message template of that type, in their declared order
+     * @return the rendered message
+     */
+    public String message(NotificationType type, Object... values) {
+        return render(messages.get(type), values);
+    }
+
+    /**
+     * Renders the HTML email around a notification message.
+     *
+     * @param subject    the subject, shown as the email heading
+     * @param memberName the name of the member the email is addressed to
+     * @param message    the notification message
+     * @return the rendered email
+     */
+    public String email(String subject, String memberName, String message) {
+        return render(layout, subject, memberName, message);
+    }
+
+    /**
+     * Formats a date in the system time zone.
+     *
+     * @param date      the date to format
+     * @param formatter {@link #DATE} or {@link #DATE_TIME}
+     * @return the formatted date
+     */
+    public static String format(Date date, DateTimeFormatter formatter) {
+        return formatter.format(date.toInstant().atZone(ZoneId.systemDefault()));
+    }
+
+    private String render(NotificationTemplate template, Object... values) {
+        if (virtualThreads) {
+            StringBuilder buffer = new StringBuilder(template.estimatedLength());
+            template.renderTo(buffer, values);
+            return buffer.toString();
+        }
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        template.renderTo(buffer, values);
+        String rendered = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return rendered;
+    }
+
+    private static String read(String name) {
+        try (InputStream in = new ClassPathResource(LOCATION + name).getInputStream()) {
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            // Editors end files with a newline that is not part of the template
+            return source.endsWith("\n") ? source.substring(0, source.length() - 1) : source;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read notification template " + name, e);
+        }
+    }
+}
@@ -10,7 +10,7 @@ public class Notifications {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_id_generator")
-    @SequenceGenerator(name = "notification_id_generator", sequenceName = "notification_id_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "notification_id_generator", sequenceName = "notification_id_sequence", allocationSize = 100)
     @Column(name = "notification_id")
     private int notificationId;
 
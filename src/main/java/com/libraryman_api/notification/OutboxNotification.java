@@ -0,0 +1,94 @@
+package com.libraryman_api.notification;
+
+import jakarta.persistence.*;
+
+import java.sql.Timestamp;
+
+/**
+ * A notification waiting in the outbox to be rendered and sent.
+ *
+ * <p>The row only records what happened to which borrowing; the message is built by
+ * the {@link NotificationOutboxDispatcher} when the row is dispatched.</p>
+ */
+@Entity
+@Table(name = "notification_outbox")
+public class OutboxNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_id_generator")
+    @SequenceGenerator(name = "outbox_id_generator", sequenceName = "outbox_id_sequence", allocationSize = 100)
+    @Column(name = "outbox_id")
+    private int outboxId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "notification_type", nullable = false)
+    private NotificationType notificationType;
+
+    @Column(name = "borrowing_id", nullable = false)
+    private int borrowingId;
+
+    @Column(name = "created_at", nullable = false)
+    private Timestamp createdAt;
+
+    // The row is not dispatched before this time; pushed back after a failed attempt
+    @Column(name = "available_at", nullable = false)
+    private Timestamp availableAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+
+    public OutboxNotification() {
+    }
+
+    public OutboxNotification(NotificationType notificationType, int borrowingId, Timestamp createdAt) {
+        this.notificationType = notificationType;
+        this.borrowingId = borrowingId;
+        this.createdAt = createdAt;
+        this.availableAt = createdAt;
+    }
+
+    public int getOutboxId() {
+        return outboxId;
+    }
+
+    public NotificationType getNotificationType() {
+        return notificationType;
+    }
+
+    public void setNotificationType(NotificationType notificationType) {
+        this.notificationType = notificationType;
+    }
+
+    public int getBorrowingId() {
+        return borrowingId;
+    }
+
+    public void setBorrowingId(int borrowingId) {
+        this.borrowingId = borrowingId;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Timestamp getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(Timestamp availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+}
@@ -0,0 +1,25 @@
+package com.libraryman_api.notification;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public interface OutboxNotificationRepository extends JpaRepository<OutboxNotification, Integer> {
+
+    // Locks the rows it returns and skips the rows locked by another dispatcher (FOR UPDATE SKIP LOCKED),
+    // so that several application instances can drain the outbox without sending a notification twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM OutboxNotification o WHERE o.availableAt <= :now ORDER BY o.outboxId")
+    List<OutboxNotification> findDueForDispatch(@Param("now") Timestamp now, Pageable pageable);
+}
@@ -0,0 +1,93 @@
+package com.libraryman_api.pagination;
+
+import com.libraryman_api.exception.InvalidFieldsException;
+import jakarta.persistence.Tuple;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields a client asked for with the {@code fields} parameter of a listing (a sparse fieldset).
+ *
+ * <p>Only these columns are selected, and each row is returned as a map holding exactly these
+ * fields. Nested fields such as {@code book.title} are selected through a left join and returned
+ * as nested objects, {@code {"book": {"title": ...}}}.</p>
+ */
+public final class FieldSet {
+
+    private final List<String> paths;
+
+    private FieldSet(List<String> paths) {
+        this.paths = paths;
+    }
+
+    /**
+     * Validates the requested fields against the fields a listing exposes.
+     *
+     * @param requested the values of the {@code fields} parameter, each possibly holding several comma-separated fields
+     * @param allowed   the fields the listing exposes
+     * @return the fields, without duplicates, in the order they were requested
+     * @throws InvalidFieldsException if no field is requested or one of them is not exposed
+     */
+    public static FieldSet of(List<String> requested, Set<String> allowed) {
+        Set<String> paths = new LinkedHashSet<>();
+        for (String value : requested) {
+            for (String field : value.split(",")) {
+                if (!field.isBlank()) {
+                    paths.add(field.trim());
+                }
+            }
+        }
+        if (paths.isEmpty()) {
+            throw new InvalidFieldsException("The 'fields' parameter must name at least one field.");
+        }
+        List<String> unknown = paths.stream().filter(path -> !allowed.contains(path)).toList();
+        if (!unknown.isEmpty()) {
+            throw new InvalidFieldsException("The specified 'fields' value is invalid: " + String.join(", ", unknown));
+        }
+        return new FieldSet(List.copyOf(paths));
+    }
+
+    /**
+     * Returns the attribute paths of the fields, in their requested order.
+     *
+     * @return the attribute paths
+     */
+    public List<String> paths() {
+        return paths;
+    }
+
+    /**
+     * Converts a row selected with {@link #paths()}, in that order, into a map of the fields.
+     *
+     * @param row the selected row
+     * @return the fields of the row, nested along their paths
+     */
+    Map<String, Object> toMap(Tuple row) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            put(fields, paths.get(i), row.get(i));
+        }
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> fields, String path, Object value) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            fields.put(path, value);
+            return;
+        }
+        Map<String, Object> nested = (Map<String, Object>) fields.computeIfAbsent(path.substring(0, dot),
+                key -> new LinkedHashMap<String, Object>());
+        put(nested, path.substring(dot + 1), value);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", paths);
+    }
+}
@@ -0,0 +1,60 @@
+package com.libraryman_api.pagination;
+
+import com.libraryman_api.exception.InvalidCursorException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page, handed to clients as an opaque token.
+ *
+ * <p>The cursor records the sort property and direction the page was read with,
+ * the sort value of the last row and its ID as a tie-breaker. The next page is
+ * read with a {@code WHERE (sortValue, id) > (lastValue, lastId)} condition
+ * instead of an {@code OFFSET}, so every page costs the same.</p>
+ *
+ * @param property  the sort property
+ * @param direction the sort direction
+ * @param lastValue the sort value of the last row, encoded as text, or {@code null}
+ * @param lastId    the ID of the last row
+ */
+public record KeysetCursor(String property, Sort.Direction direction, String lastValue, int lastId) {
+
+    private static final char SEPARATOR = '\u0000';
+    private static final String NULL_VALUE = "n";
+    private static final String VALUE_PREFIX = "v";
+
+    /**
+     * Encodes this cursor as an opaque, URL-safe token.
+     *
+     * @return the encoded token
+     */
+    public String encode() {
+        String payload = property + SEPARATOR + direction.name() + SEPARATOR + lastId + SEPARATOR
+                + (lastValue == null ? NULL_VALUE : VALUE_PREFIX + lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token created by {@link #encode()}.
+     *
+     * @param token the token sent by the client
+     * @return the decoded cursor
+     * @throws InvalidCursorException if the token is malformed
+     */
+    public static KeysetCursor decode(String token) {
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The value comes last so that it may contain any character
+            String[] parts = payload.split(String.valueOf(SEPARATOR), 4);
+            if (parts.length != 4 || parts[3].isEmpty()) {
+                throw new InvalidCursorException("The specified 'cursor' value is invalid.");
+            }
+            String value = parts[3].startsWith(VALUE_PREFIX) ? parts[3].substring(VALUE_PREFIX.length()) : null;
+            return new KeysetCursor(parts[0], Sort.Direction.valueOf(parts[1]), value, Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("The specified 'cursor' value is invalid.", ex);
+        }
+    }
+}
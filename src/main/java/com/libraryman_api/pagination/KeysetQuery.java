@@ -0,0 +1,343 @@
+package com.libraryman_api.pagination;
+
+import com.libraryman_api.exception.InvalidCursorException;
+import com.libraryman_api.exception.InvalidSortFieldException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.NullValueInNestedPathException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads entities with keyset (seek) pagination.
+ *
+ * <p>Rows are ordered by one sort property with the entity ID as a tie-breaker.
+ * Each slice is read with a condition on the last row of the previous slice and
+ * a {@code LIMIT} of one row more than requested, which tells whether another
+ * slice follows. No offset is skipped and no count query is run, so deep slices
+ * cost the same as the first one.</p>
+ *
+ * <p>Nested sort properties such as {@code book.title} or {@code book_title} are
+ * reached through left joins, so rows without the association are kept, as with
+ * offset pagination. {@code NULL} sort values are assumed to sort first in ascending order and
+ * last in descending order, as MySQL and H2 do.</p>
+ *
+ * <p>Whole tables are read slice by slice with {@link #forEachSlice}, for exports.</p>
+ */
+@Component
+public class KeysetQuery {
+
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Constructs a new {@code KeysetQuery}.
+     *
+     * @param entityManager        the entity manager used to run the queries
+     * @param entityManagerFactory the factory of the entity managers used by {@link #forEachSlice}
+     */
+    public KeysetQuery(EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.entityManager = entityManager;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Reads one slice of entities.
+     *
+     * @param entityType  the entity class
+     * @param idAttribute the name of the integer ID attribute of the entity
+     * @param pageable    the slice size and sort; only the first sort order is used, the page number is ignored
+     * @param cursor      the cursor returned with the previous slice, or {@code null} or empty for the first slice
+     * @param fetches     the associations loaded in the same query, with left fetch joins
+     * @param <E>         the entity type
+     * @return the slice, with the cursor of the next slice if there is one
+     * @throws InvalidSortFieldException if the sort property does not exist
+     * @throws InvalidCursorException    if the cursor is malformed or was issued for another sort
+     */
+    @Transactional(readOnly = true)
+    public <E> KeysetSlice<E> find(Class<E> entityType, String idAttribute, Pageable pageable, String cursor,
+                                   String... fetches) {
+        Sort.Order order = order(pageable, idAttribute);
+        KeysetCursor after = after(cursor, order);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<E> query = cb.createQuery(entityType);
+        Root<E> root = query.from(entityType);
+        for (String fetch : fetches) {
+            root.fetch(fetch, JoinType.LEFT);
+        }
+        Path<Comparable<Object>> sortPath = path(root, order.getProperty());
+        Path<Integer> idPath = root.get(idAttribute);
+        seek(cb, query, sortPath, idPath, order, after);
+
+        List<E> rows = entityManager.createQuery(query)
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        Pageable slice = PageRequest.of(0, pageable.getPageSize(), Sort.by(order));
+        if (rows.size() <= pageable.getPageSize()) {
+            return new KeysetSlice<>(rows, slice, null);
+        }
+        List<E> content = rows.subList(0, pageable.getPageSize());
+        BeanWrapper last = PropertyAccessorFactory.forBeanPropertyAccess(content.get(content.size() - 1));
+        KeysetCursor next = new KeysetCursor(order.getProperty(), order.getDirection(),
+                format(value(last, order.getProperty())), (Integer) last.getPropertyValue(idAttribute));
+        return new KeysetSlice<>(List.copyOf(content), slice, next.encode());
+    }
+
+    /**
+     * Reads one slice of entities, selecting only the requested fields.
+     *
+     * @param entityType  the entity class
+     * @param idAttribute the name of the integer ID attribute of the entity
+     * @param pageable    the slice size and sort; only the first sort order is used, the page number is ignored
+     * @param cursor      the cursor returned with the previous slice, or {@code null} or empty for the first slice
+     * @param fields      the fields to select
+     * @return the slice of rows, each holding the requested fields, with the cursor of the next slice if there is one
+     * @throws InvalidSortFieldException if the sort property does not exist
+     * @throws InvalidCursorException    if the cursor is malformed or was issued for another sort
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Map<String, Object>> find(Class<?> entityType, String idAttribute, Pageable pageable,
+                                                 String cursor, FieldSet fields) {
+        return find(entityManager, entityType, idAttribute, pageable, cursor, fields);
+    }
+
+    /**
+     * Reads all entities in ID order, one slice at a time, selecting only the requested fields.
+     *
+     * <p>Each slice is read in its own short transaction, with an entity manager of its own
+     * that is closed before the slice is handed over. No transaction or connection is held
+     * while the handler runs, however long it takes, and a slice is released before the next
+     * one is read.</p>
+     *
+     * @param entityType  the entity class
+     * @param idAttribute the name of the integer ID attribute of the entity
+     * @param fields      the fields to select
+     * @param sliceSize   the number of rows read at once
+     * @param handler     receives the rows of each slice, each holding the requested fields
+     * @param <X>         the type of exception thrown by the handler
+     * @throws X if the handler fails, which stops the reading
+     */
+    public <X extends Exception> void forEachSlice(Class<?> entityType, String idAttribute, FieldSet fields,
+                                                   int sliceSize, SliceHandler<X> handler) throws X {
+        Pageable pageable = PageRequest.of(0, sliceSize, Sort.by(idAttribute));
+        String cursor = null;
+        do {
+            KeysetSlice<Map<String, Object>> slice;
+            EntityManager sliceEntityManager = entityManagerFactory.createEntityManager();
+            try {
+                sliceEntityManager.getTransaction().begin();
+                slice = find(sliceEntityManager, entityType, idAttribute, pageable, cursor, fields);
+                sliceEntityManager.getTransaction().commit();
+            } finally {
+                if (sliceEntityManager.getTransaction().isActive()) {
+                    sliceEntityManager.getTransaction().rollback();
+                }
+                sliceEntityManager.close();
+            }
+            handler.handle(slice.getContent());
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+    }
+
+    private static KeysetSlice<Map<String, Object>> find(EntityManager entityManager, Class<?> entityType,
+                                                         String idAttribute, Pageable pageable, String cursor,
+                                                         FieldSet fields) {
+        Sort.Order order = order(pageable, idAttribute);
+        KeysetCursor after = after(cursor, order);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(entityType);
+        Path<Comparable<Object>> sortPath = path(root, order.getProperty());
+        Path<Integer> idPath = root.get(idAttribute);
+        List<Selection<?>> selections = new ArrayList<>(select(root, fields));
+        // The sort value and ID of the last row make the next cursor
+        selections.add(sortPath);
+        selections.add(idPath);
+        query.multiselect(selections);
+        seek(cb, query, sortPath, idPath, order, after);
+
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        Pageable slice = PageRequest.of(0, pageable.getPageSize(), Sort.by(order));
+        List<Map<String, Object>> content = rows.stream().limit(pageable.getPageSize()).map(fields::toMap).toList();
+        if (rows.size() <= pageable.getPageSize()) {
+            return new KeysetSlice<>(content, slice, null);
+        }
+        Tuple last = rows.get(pageable.getPageSize() - 1);
+        int size = fields.paths().size();
+        KeysetCursor next = new KeysetCursor(order.getProperty(), order.getDirection(),
+                format(last.get(size)), (Integer) last.get(size + 1));
+        return new KeysetSlice<>(content, slice, next.encode());
+    }
+
+    /**
+     * Returns the paths of the requested fields, reached through left joins for nested fields.
+     *
+     * @param root   the root of the query
+     * @param fields the fields to select
+     * @return the paths, in the order of the fields
+     * @throws InvalidSortFieldException if a field does not exist
+     */
+    static List<Selection<?>> select(Root<?> root, FieldSet fields) {
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : fields.paths()) {
+            selections.add(path(root, field));
+        }
+        return selections;
+    }
+
+    private static Sort.Order order(Pageable pageable, String idAttribute) {
+        return pageable.getSort().stream().findFirst().orElse(Sort.Order.asc(idAttribute));
+    }
+
+    private static KeysetCursor after(String cursor, Sort.Order order) {
+        KeysetCursor after = cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+        if (after != null && (!after.property().equals(order.getProperty()) || after.direction() != order.getDirection())) {
+            throw new InvalidCursorException("The specified 'cursor' was issued for a different sort order.");
+        }
+        return after;
+    }
+
+    private static void seek(CriteriaBuilder cb, CriteriaQuery<?> query, Path<Comparable<Object>> sortPath,
+                             Path<Integer> idPath, Sort.Order order, KeysetCursor after) {
+        if (after != null) {
+            query.where(after(cb, sortPath, idPath, order.getDirection(), after));
+        }
+        query.orderBy(order.isAscending() ? cb.asc(sortPath) : cb.desc(sortPath), cb.asc(idPath));
+    }
+
+    private static Predicate after(CriteriaBuilder cb, Path<Comparable<Object>> sortPath, Path<Integer> idPath,
+                                   Sort.Direction direction, KeysetCursor cursor) {
+        Predicate sameValueLaterId;
+        if (cursor.lastValue() == null) {
+            sameValueLaterId = cb.and(cb.isNull(sortPath), cb.greaterThan(idPath, cursor.lastId()));
+            // Ascending: the NULLs come first, followed by every non-NULL value
+            return direction.isAscending() ? cb.or(sameValueLaterId, cb.isNotNull(sortPath)) : sameValueLaterId;
+        }
+        Comparable<Object> value = parse(cursor.lastValue(), sortPath.getJavaType());
+        sameValueLaterId = cb.and(cb.equal(sortPath, value), cb.greaterThan(idPath, cursor.lastId()));
+        if (direction.isAscending()) {
+            return cb.or(cb.greaterThan(sortPath, value), sameValueLaterId);
+        }
+        // Descending: the NULLs come after every non-NULL value
+        return cb.or(cb.lessThan(sortPath, value), sameValueLaterId, cb.isNull(sortPath));
+    }
+
+    private static <E> Path<Comparable<Object>> path(Root<E> root, String property) {
+        try {
+            String[] parts = property.split("[._]");
+            From<?, ?> from = root;
+            for (int i = 0; i < parts.length - 1; i++) {
+                from = join(from, parts[i]);
+            }
+            return from.get(parts[parts.length - 1]);
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            throw new InvalidSortFieldException("The specified 'sortBy' value is invalid.", ex);
+        }
+    }
+
+    // Reuses the join of an association, so that several of its fields are selected from one join
+    private static From<?, ?> join(From<?, ?> from, String attribute) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute) && join.getJoinType() == JoinType.LEFT) {
+                return join;
+            }
+        }
+        return from.join(attribute, JoinType.LEFT);
+    }
+
+    private static Object value(BeanWrapper row, String property) {
+        try {
+            return row.getPropertyValue(property.replace('_', '.'));
+        } catch (NullValueInNestedPathException ex) {
+            // The association is missing, which sorts like a NULL value
+            return null;
+        }
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Date date) {
+            return Long.toString(date.getTime());
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        return value.toString();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparable<Object> parse(String value, Class<?> type) {
+        try {
+            if (type == String.class) {
+                return (Comparable) value;
+            }
+            if (type == Integer.class || type == int.class) {
+                return (Comparable) Integer.valueOf(value);
+            }
+            if (type == Long.class || type == long.class) {
+                return (Comparable) Long.valueOf(value);
+            }
+            if (type == Boolean.class || type == boolean.class) {
+                return (Comparable) Boolean.valueOf(value);
+            }
+            if (type == BigDecimal.class) {
+                return (Comparable) new BigDecimal(value);
+            }
+            if (Date.class.isAssignableFrom(type)) {
+                return (Comparable) new Date(Long.parseLong(value));
+            }
+            if (type.isEnum()) {
+                return (Comparable) Enum.valueOf((Class<? extends Enum>) type, value);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("The specified 'cursor' value is invalid.", ex);
+        }
+        throw new InvalidSortFieldException("The specified 'sortBy' value cannot be used with a cursor.");
+    }
+
+    /**
+     * Receives the rows of each slice read by {@link #forEachSlice}.
+     *
+     * @param <X> the type of exception thrown by the handler
+     */
+    @FunctionalInterface
+    public interface SliceHandler<X extends Exception> {
+
+        /**
+         * Handles the rows of one slice.
+         *
+         * @param rows the rows, each holding the requested fields
+         * @throws X if the rows cannot be handled
+         */
+        void handle(List<Map<String, Object>> rows) throws X;
+    }
+}
@@ -0,0 +1,50 @@
+package com.libraryman_api.pagination;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.io.Serial;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A {@link org.springframework.data.domain.Slice} read with keyset pagination.
+ *
+ * <p>Unlike a {@link org.springframework.data.domain.Page}, no total count is computed.
+ * The client continues with the {@link #getNextCursor() next cursor} until it is {@code null}.</p>
+ *
+ * @param <T> the type of the content
+ */
+public class KeysetSlice<T> extends SliceImpl<T> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String nextCursor;
+
+    /**
+     * Constructs a new {@code KeysetSlice}.
+     *
+     * @param content    the rows of this slice
+     * @param pageable   the size and sort the slice was read with
+     * @param nextCursor the cursor of the next slice, or {@code null} if this is the last one
+     */
+    public KeysetSlice(List<T> content, Pageable pageable, String nextCursor) {
+        super(content, pageable, nextCursor != null);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the opaque cursor to pass as {@code cursor} to read the next slice.
+     *
+     * @return the next cursor, or {@code null} if there are no more rows
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public <U> KeysetSlice<U> map(Function<? super T, ? extends U> converter) {
+        return new KeysetSlice<>(getConvertedContent(converter), getPageable(), nextCursor);
+    }
+}
@@ -0,0 +1,84 @@
+package com.libraryman_api.pagination;
+
+import com.libraryman_api.exception.InvalidSortFieldException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads pages of entities selecting only the fields of a {@link FieldSet}.
+ *
+ * <p>The rows are read as tuples of the requested columns, so Hibernate neither hydrates
+ * the entities nor loads their associations. Keyset slices are projected the same way by
+ * {@link KeysetQuery#find(Class, String, Pageable, String, FieldSet)}.</p>
+ */
+@Component
+public class ProjectionQuery {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Constructs a new {@code ProjectionQuery}.
+     *
+     * @param entityManager the entity manager used to run the queries
+     */
+    public ProjectionQuery(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Reads one page of entities, selecting only the requested fields.
+     *
+     * @param entityType the entity class
+     * @param pageable   the page number, size and sort
+     * @param fields     the fields to select
+     * @return the page of rows, each holding the requested fields
+     * @throws InvalidSortFieldException if a sort property does not exist
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findPage(Class<?> entityType, Pageable pageable, FieldSet fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(entityType);
+        query.multiselect(KeysetQuery.select(root, fields));
+        query.orderBy(orders(root, cb, pageable.getSort()));
+
+        List<Map<String, Object>> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList()
+                .stream()
+                .map(fields::toMap)
+                .toList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(entityType));
+    }
+
+    private static List<Order> orders(Root<?> root, CriteriaBuilder cb, Sort sort) {
+        try {
+            return QueryUtils.toOrders(sort, root, cb);
+        } catch (PropertyReferenceException | IllegalArgumentException ex) {
+            throw new InvalidSortFieldException("The specified 'sortBy' value is invalid.", ex);
+        }
+    }
+
+    private long count(Class<?> entityType) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        query.select(cb.count(query.from(entityType)));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
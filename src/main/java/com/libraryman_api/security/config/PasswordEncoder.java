@@ -1,14 +1,35 @@
 package com.libraryman_api.security.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.time.Duration;
+
 @Configuration
 public class PasswordEncoder {
 
-    @Bean
-    public BCryptPasswordEncoder bCryptPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${libraryman.password-hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int hashingThreads;
+
+    @Value("${libraryman.password-hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${libraryman.password-hashing.timeout:5s}")
+    private Duration hashingTimeout;
+
+    public PasswordEncoder(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // BCrypt runs on a bounded pool, so that a burst of logins cannot occupy every request thread
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder bCryptPasswordEncoder() {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), hashingThreads, hashingQueueCapacity,
+                hashingTimeout, meterRegistry);
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.libraryman_api.security.config;
 
 import com.libraryman_api.security.jwt.JwtAuthenticationFilter;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -41,6 +42,9 @@ public class WebConfiguration {
                         .requestMatchers("/api/signup").permitAll()
                         .requestMatchers("/api/login").permitAll()
                         .requestMatchers("/api/logout").permitAll()
+                        .requestMatchers(EndpointRequest.to("health")).permitAll()
+                        // Metrics, including the Prometheus scrape, and cache management (DELETE /actuator/caches) are for admins only
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .logout(logout -> logout
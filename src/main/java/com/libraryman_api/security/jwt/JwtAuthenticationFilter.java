@@ -1,30 +1,43 @@
 package com.libraryman_api.security.jwt;
 
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.libraryman_api.security.model.JwtPrincipal;
+import com.libraryman_api.security.services.CustomUserDetailsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Objects;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     private final JwtAuthenticationHelper jwtHelper;
 
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
+
+    // When enabled, the principal is rebuilt from the token claims instead of loading the member
+    private final boolean statelessPrincipal;
 
-    public JwtAuthenticationFilter(JwtAuthenticationHelper jwtHelper, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtAuthenticationHelper jwtHelper, CustomUserDetailsService userDetailsService,
+                                   @Value("${libraryman.jwt.stateless-principal:false}") boolean statelessPrincipal) {
         this.jwtHelper = jwtHelper;
         this.userDetailsService = userDetailsService;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
@@ -36,16 +49,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = null;
         if (requestHeader != null && requestHeader.startsWith("Bearer ")) {
             token = requestHeader.substring(7);
-            username = jwtHelper.getUsernameFromToken(token);
+            Claims claims = jwtHelper.getClaimsFromToken(token);
+            username = claims.getSubject();
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (!(jwtHelper.isTokenExpired(token))) {
+                UserDetails userDetails = null;
+                JwtPrincipal principal = statelessPrincipal ? jwtHelper.getPrincipalFromClaims(claims) : null;
+                if (jwtHelper.isTokenExpired(claims)) {
+                    LOGGER.debug("Token is expired or user details not found.");
+                } else if (principal != null) {
+                    // A changed password or username, or a deleted member, revokes the token
+                    if (Objects.equals(userDetailsService.getCredentialsVersion(principal.getMemberId()).orElse(null),
+                            jwtHelper.getCredentialsVersion(claims))) {
+                        userDetails = principal;
+                    } else {
+                        LOGGER.debug("Token of member {} has been revoked.", principal.getMemberId());
+                    }
+                } else {
+                    userDetails = userDetailsService.loadUserByUsername(username);
+                }
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
-
-                } else {
-                    System.out.println("Token is expired or user details not found.");
                 }
             }
 
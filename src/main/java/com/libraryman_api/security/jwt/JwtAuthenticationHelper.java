@@ -1,9 +1,15 @@
 package com.libraryman_api.security.jwt;
 
+import com.libraryman_api.member.Members;
+import com.libraryman_api.member.Role;
+import com.libraryman_api.security.model.JwtPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
@@ -16,8 +22,24 @@ import java.util.Map;
 public class JwtAuthenticationHelper {
 
     private static final long JWT_TOKEN_VALIDITY = 60 * 60;
-    @Value("${jwt.secretKey}")
-    private String secret;
+
+    // Verified tokens, so that a token is parsed and its signature checked once, not on every request
+    private static final String CLAIMS_CACHE = "tokenClaims";
+
+    // Claims from which a principal can be rebuilt without loading the member
+    private static final String MEMBER_ID_CLAIM = "memberId";
+    private static final String ROLE_CLAIM = "role";
+    private static final String CREDENTIALS_VERSION_CLAIM = "ver";
+
+    private final SecretKeySpec signingKey;
+    private final JwtParser parser;
+    private final Cache claimsCache;
+
+    public JwtAuthenticationHelper(@Value("${jwt.secretKey}") String secret, CacheManager cacheManager) {
+        this.signingKey = new SecretKeySpec(secret.getBytes(), SignatureAlgorithm.HS512.getJcaName());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.claimsCache = cacheManager.getCache(CLAIMS_CACHE);
+    }
 
     public String getUsernameFromToken(String token) {
         String username = getClaimsFromToken(token).getSubject();
@@ -25,24 +47,48 @@ public class JwtAuthenticationHelper {
     }
 
     public Claims getClaimsFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secret.getBytes())
-                .build().parseClaimsJws(token).getBody();
+        Claims claims = claimsCache.get(token, Claims.class);
+        if (claims == null) {
+            claims = parser.parseClaimsJws(token).getBody();
+            claimsCache.put(token, claims);
+        }
         return claims;
     }
 
     public Boolean isTokenExpired(String token) {
-        Claims claims = getClaimsFromToken(token);
+        return isTokenExpired(getClaimsFromToken(token));
+    }
+
+    public Boolean isTokenExpired(Claims claims) {
         Date expDate = claims.getExpiration();
         return expDate.before(new Date());
     }
 
+    // Returns null for tokens issued without the principal claims
+    public JwtPrincipal getPrincipalFromClaims(Claims claims) {
+        Integer memberId = claims.get(MEMBER_ID_CLAIM, Integer.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (memberId == null || role == null || getCredentialsVersion(claims) == null) {
+            return null;
+        }
+        return new JwtPrincipal(memberId, claims.getSubject(), Role.valueOf(role));
+    }
+
+    public Integer getCredentialsVersion(Claims claims) {
+        return claims.get(CREDENTIALS_VERSION_CLAIM, Integer.class);
+    }
+
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof Members member) {
+            claims.put(MEMBER_ID_CLAIM, member.getMemberId());
+            claims.put(ROLE_CLAIM, member.getRole().name());
+            claims.put(CREDENTIALS_VERSION_CLAIM, member.getCredentialsVersion());
+        }
         return Jwts.builder().setClaims(claims).setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY * 1000))
-                .signWith(new SecretKeySpec(secret.getBytes(), SignatureAlgorithm.HS512.getJcaName()), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 }
@@ -0,0 +1,53 @@
+package com.libraryman_api.security.model;
+
+import com.libraryman_api.member.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Principal rebuilt from the claims of a verified token, without loading the member.
+ * It exposes the same {@code memberId}, {@code username} and authorities as
+ * {@link com.libraryman_api.member.Members}, which {@code @PreAuthorize} expressions rely on.
+ */
+public class JwtPrincipal implements UserDetails {
+
+    private final int memberId;
+
+    private final String username;
+
+    private final Role role;
+
+    public JwtPrincipal(int memberId, String username, Role role) {
+        this.memberId = memberId;
+        this.username = username;
+        this.role = role;
+    }
+
+    public int getMemberId() {
+        return memberId;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+}
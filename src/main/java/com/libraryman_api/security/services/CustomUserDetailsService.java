@@ -2,21 +2,43 @@ package com.libraryman_api.security.services;
 
 import com.libraryman_api.member.MemberRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     @Autowired
     MemberRepository memberRepository;
 
+    // Cached so that authenticating a request does not query the database;
+    // MemberService evicts the entry whenever the member changes
     @Override
+    @Cacheable(value = "userDetails", key = "#username")
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
         return memberRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("Username not Found"));
     }
 
+    // The current credentials version of a member, compared with the "ver" claim of stateless tokens.
+    // Empty once the member is deleted.
+    @Cacheable(value = "credentialsVersions", key = "#memberId")
+    public Optional<Integer> getCredentialsVersion(int memberId) {
+        return memberRepository.findCredentialsVersionByMemberId(memberId);
+    }
+
+    @Caching(evict = {
+            @CacheEvict(value = "userDetails", key = "#username"),
+            @CacheEvict(value = "credentialsVersions", key = "#memberId")
+    })
+    public void evictUser(int memberId, String username) {
+    }
+
 }
@@ -0,0 +1,29 @@
+package com.libraryman_api.tracing;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A finished trace: one checkout, return or outbox batch, with the timing of each of its stages.
+ *
+ * @param name           the operation traced, such as {@code borrow}
+ * @param start          when the operation started
+ * @param durationMicros the duration of the whole operation
+ * @param error          the class of the exception the operation failed with, or {@code null} if it succeeded
+ * @param spans          the stages of the operation, in the order they started
+ * @param droppedSpans   the number of stages not recorded once the trace held {@code max-spans} spans
+ */
+public record Trace(String name, Instant start, long durationMicros, String error, List<Span> spans,
+                    int droppedSpans) {
+
+    /**
+     * A stage of a trace.
+     *
+     * @param name           the stage, such as {@code borrowing.save}
+     * @param depth          the number of enclosing spans; the stages run directly by the operation are at depth 0
+     * @param offsetMicros   the time from the start of the trace to the start of the stage
+     * @param durationMicros the duration of the stage
+     */
+    public record Span(String name, int depth, long offsetMicros, long durationMicros) {
+    }
+}
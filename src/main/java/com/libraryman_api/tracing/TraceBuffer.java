@@ -0,0 +1,72 @@
+package com.libraryman_api.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ring buffer of the most recent traces, so that slow operations can be inspected after the fact.
+ *
+ * <p>The buffer holds the last {@code buffer-size} traces, whatever their duration; once it is
+ * full, each new trace overwrites the oldest one. Nothing is allocated when a trace is recorded.</p>
+ *
+ * <p>Every traced request records into the buffer, so recording takes no lock: each trace
+ * claims the next sequence number and is stored in the slot it maps to. {@link #find} reads
+ * the slots behind the sequence number as it finds it; a trace recorded while it runs may be
+ * missed, or seen in place of the older trace it overwrote.</p>
+ */
+@Component
+public class TraceBuffer {
+
+    private final AtomicReferenceArray<Trace> traces;
+    // The number of traces ever recorded; trace n is stored in slot n % length
+    private final AtomicLong recorded = new AtomicLong();
+
+    /**
+     * Constructs a new {@code TraceBuffer}.
+     *
+     * @param capacity the number of traces kept
+     */
+    public TraceBuffer(@Value("${libraryman.tracing.buffer-size:1000}") int capacity) {
+        this.traces = new AtomicReferenceArray<>(Math.max(1, capacity));
+    }
+
+    /**
+     * Records a finished trace, overwriting the oldest one if the buffer is full.
+     *
+     * @param trace the trace
+     */
+    public void record(Trace trace) {
+        traces.set((int) (recorded.getAndIncrement() % traces.length()), trace);
+    }
+
+    /**
+     * Returns the buffered traces matching the given criteria, most recent first.
+     *
+     * @param name        the operation of the traces, or {@code null} for all of them
+     * @param minDuration the minimum duration of the traces
+     * @param limit       the maximum number of traces returned
+     * @return the traces
+     */
+    public List<Trace> find(String name, Duration minDuration, int limit) {
+        long minMicros = minDuration.toNanos() / 1000;
+        List<Trace> found = new ArrayList<>();
+        long end = recorded.get();
+        for (long n = end - 1; n >= Math.max(0, end - traces.length()) && found.size() < limit; n--) {
+            Trace trace = traces.get((int) (n % traces.length()));
+            // A slot claimed but not written yet
+            if (trace == null) {
+                continue;
+            }
+            if ((name == null || name.equals(trace.name())) && trace.durationMicros() >= minMicros) {
+                found.add(trace);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,46 @@
+package com.libraryman_api.tracing;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * REST controller exposing the recent traces of the checkout, return and notification paths.
+ */
+@RestController
+@RequestMapping("/api/traces")
+public class TraceController {
+
+    private final TraceBuffer traceBuffer;
+
+    /**
+     * Constructs a new {@code TraceController} with the specified {@link TraceBuffer}.
+     *
+     * @param traceBuffer the buffer holding the recent traces.
+     */
+    public TraceController(TraceBuffer traceBuffer) {
+        this.traceBuffer = traceBuffer;
+    }
+
+    /**
+     * Retrieves the recent traces, most recent first.
+     *
+     * @param name          (optional) the traced operation: {@code borrow}, {@code return}, {@code payFine} or
+     *                      {@code notificationBatch}.
+     * @param minDurationMs (optional) the minimum duration of the traces, in milliseconds, to look at slow operations only.
+     * @param limit         (optional) the maximum number of traces returned. Defaults to 50.
+     * @return the {@link Trace} objects, each with the offset and duration of its spans in microseconds.
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<Trace> getTraces(@RequestParam(required = false) String name,
+                                 @RequestParam(defaultValue = "0") long minDurationMs,
+                                 @RequestParam(defaultValue = "50") int limit) {
+        return traceBuffer.find(name, Duration.ofMillis(minDurationMs), limit);
+    }
+}
@@ -0,0 +1,82 @@
+package com.libraryman_api.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Appends slow traces to a local file, one JSON trace per line.
+ *
+ * <p>Only traces lasting at least {@code file-threshold} are written, so the file stays small
+ * and the writes stay rare. Nothing is written when {@code libraryman.tracing.file} is empty.</p>
+ */
+@Component
+public class TraceFile {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TraceFile.class);
+
+    private final ObjectMapper objectMapper;
+    private final long thresholdMicros;
+    private final Writer writer;
+
+    /**
+     * Constructs a new {@code TraceFile}.
+     *
+     * @param objectMapper the mapper the traces are written with
+     * @param file         the file the traces are appended to, or an empty string to write none
+     * @param threshold    the minimum duration of the traces written
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public TraceFile(ObjectMapper objectMapper,
+                     @Value("${libraryman.tracing.file:}") String file,
+                     @Value("${libraryman.tracing.file-threshold:200ms}") Duration threshold) {
+        this.objectMapper = objectMapper;
+        this.thresholdMicros = threshold.toNanos() / 1000;
+        try {
+            this.writer = file.isEmpty() ? null : Files.newBufferedWriter(Path.of(file), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the trace file " + file, e);
+        }
+    }
+
+    /**
+     * Appends a trace to the file if it is slow enough.
+     *
+     * @param trace the finished trace
+     */
+    public void write(Trace trace) {
+        if (writer == null || trace.durationMicros() < thresholdMicros) {
+            return;
+        }
+        try {
+            String line = objectMapper.writeValueAsString(trace);
+            synchronized (writer) {
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write the {} trace to the trace file", trace.name(), e);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.libraryman_api.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Lightweight in-process tracing of the checkout, return and notification paths.
+ *
+ * <p>{@link #trace} times an operation and makes it the current trace of the calling thread;
+ * {@link #span} times a stage of the current trace, and only runs the stage when the thread
+ * has none, so instrumented code can be called from anywhere. A span costs two
+ * {@link System#nanoTime()} calls and one small object. Finished traces are kept in the
+ * {@link TraceBuffer} and the slow ones are appended to the {@link TraceFile}.</p>
+ *
+ * <p>Tracing is turned off with {@code libraryman.tracing.enabled=false}. A trace records at
+ * most {@code max-spans} spans; the stages beyond are run but only counted.</p>
+ */
+@Component
+public class Tracer {
+
+    private final ThreadLocal<ActiveTrace> current = new ThreadLocal<>();
+    private final TraceBuffer buffer;
+    private final TraceFile file;
+    private final boolean enabled;
+    private final int maxSpans;
+
+    /**
+     * Constructs a new {@code Tracer}.
+     *
+     * @param buffer   the buffer the finished traces are kept in
+     * @param file     the file the slow traces are appended to
+     * @param enabled  whether operations are traced
+     * @param maxSpans the maximum number of spans recorded per trace
+     */
+    public Tracer(TraceBuffer buffer, TraceFile file,
+                  @Value("${libraryman.tracing.enabled:true}") boolean enabled,
+                  @Value("${libraryman.tracing.max-spans:400}") int maxSpans) {
+        this.buffer = buffer;
+        this.file = file;
+        this.enabled = enabled;
+        this.maxSpans = maxSpans;
+    }
+
+    /**
+     * Runs an operation as a new trace, or as a span if the thread is already tracing one.
+     *
+     * @param name   the operation, such as {@code borrow}
+     * @param action the operation
+     * @param <T>    the result type of the operation
+     * @return the result of the operation
+     */
+    public <T> T trace(String name, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        if (current.get() != null) {
+            return span(name, action);
+        }
+        ActiveTrace trace = new ActiveTrace(name);
+        current.set(trace);
+        try {
+            return action.get();
+        } catch (RuntimeException | Error e) {
+            trace.error = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            current.remove();
+            Trace finished = trace.finish();
+            buffer.record(finished);
+            file.write(finished);
+        }
+    }
+
+    /**
+     * Runs a stage of the current trace as a span.
+     *
+     * @param name   the stage, such as {@code borrowing.save}
+     * @param action the stage
+     * @param <T>    the result type of the stage
+     * @return the result of the stage
+     */
+    public <T> T span(String name, Supplier<T> action) {
+        ActiveTrace trace = current.get();
+        SpanEntry span = trace == null ? null : trace.open(name, System.nanoTime());
+        if (span == null) {
+            return action.get();
+        }
+        try {
+            return action.get();
+        } finally {
+            trace.close(span);
+        }
+    }
+
+    /**
+     * Runs a stage of the current trace that returns nothing as a span.
+     *
+     * @param name   the stage, such as {@code outbox.enqueue}
+     * @param action the stage
+     */
+    public void span(String name, Runnable action) {
+        span(name, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records a stage of the current trace that started at the given time and ends now, such as
+     * the wait for a lock that is then held by the caller.
+     *
+     * @param name       the stage, such as {@code lock.wait}
+     * @param startNanos the {@link System#nanoTime()} at which the stage started
+     */
+    public void spanSince(String name, long startNanos) {
+        ActiveTrace trace = current.get();
+        SpanEntry span = trace == null ? null : trace.open(name, startNanos);
+        if (span != null) {
+            trace.close(span);
+        }
+    }
+
+    private static final class SpanEntry {
+
+        private final String name;
+        private final int depth;
+        private final long startNanos;
+        private long endNanos;
+
+        SpanEntry(String name, int depth, long startNanos) {
+            this.name = name;
+            this.depth = depth;
+            this.startNanos = startNanos;
+        }
+    }
+
+    // The trace of one thread, only ever used by that thread
+    private final class ActiveTrace {
+
+        private final String name;
+        private final Instant start = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private final List<SpanEntry> spans = new ArrayList<>();
+        private int depth;
+        private int dropped;
+        private String error;
+
+        ActiveTrace(String name) {
+            this.name = name;
+        }
+
+        SpanEntry open(String spanName, long spanStartNanos) {
+            if (spans.size() >= maxSpans) {
+                dropped++;
+                return null;
+            }
+            SpanEntry span = new SpanEntry(spanName, depth++, spanStartNanos);
+            spans.add(span);
+            return span;
+        }
+
+        void close(SpanEntry span) {
+            span.endNanos = System.nanoTime();
+            depth--;
+        }
+
+        Trace finish() {
+            long endNanos = System.nanoTime();
+            List<Trace.Span> finished = new ArrayList<>(spans.size());
+            for (SpanEntry span : spans) {
+                finished.add(new Trace.Span(span.name, span.depth, (span.startNanos - startNanos) / 1000,
+                        (span.endNanos - span.startNanos) / 1000));
+            }
+            return new Trace(name, start, (endNanos - startNanos) / 1000, error, finished, dropped);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.libraryman_api;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.coyote.AbstractProtocol;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.autoconfigure.web.embedded.TomcatVirtualThreadsWebServerFactoryCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks the Tomcat setup of each mode on a bare servlet that only sleeps: bounded by the connector threads
+// without the virtual-threads profile, a virtual thread per request with it. This is not the capacity of the
+// application, whose requests are bounded by the JDBC and SMTP pools; the load test compares that (see README)
+@EnabledForJreRange(min = JRE.JAVA_21)
+class TomcatThreadingModeTest {
+
+    private static final int PLATFORM_THREADS = 50;
+    private static final int CONCURRENT_REQUESTS = 500;
+    private static final Duration LATENCY = Duration.ofMillis(200);
+
+    @Test
+    void virtualThreadsAreNotBoundedByTheConnectorThreads() throws Exception {
+        Capacity platform = measure(false);
+        Capacity virtual = measure(true);
+
+        assertTrue(platform.peak() <= PLATFORM_THREADS, "platform threads: " + platform);
+        assertTrue(virtual.peak() > 2 * PLATFORM_THREADS, "virtual threads: " + virtual);
+        assertTrue(virtual.elapsed().compareTo(platform.elapsed().dividedBy(2)) < 0,
+                "platform threads: " + platform + ", virtual threads: " + virtual);
+    }
+
+    private static Capacity measure(boolean virtualThreads) throws Exception {
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        if (virtualThreads) {
+            new TomcatVirtualThreadsWebServerFactoryCustomizer().customize(factory);
+        } else {
+            factory.addConnectorCustomizers(connector ->
+                    ((AbstractProtocol<?>) connector.getProtocolHandler()).setMaxThreads(PLATFORM_THREADS));
+        }
+        BlockingServlet servlet = new BlockingServlet();
+        WebServer server = factory.getWebServer(context -> context.addServlet("blocking", servlet).addMapping("/"));
+        server.start();
+        try {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/")).build();
+            long start = System.nanoTime();
+            List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+            }
+            for (CompletableFuture<HttpResponse<Void>> response : responses) {
+                assertEquals(200, response.get().statusCode());
+            }
+            return new Capacity(servlet.peak.get(), Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private record Capacity(int peak, Duration elapsed) {
+    }
+
+    private static class BlockingServlet extends HttpServlet {
+
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(LATENCY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+    }
+}
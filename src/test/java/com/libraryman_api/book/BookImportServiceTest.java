@@ -0,0 +1,161 @@
+package com.libraryman_api.book;
+
+import com.libraryman_api.exception.InvalidImportException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = "libraryman.books.import.chunk-size=500")
+@Import({BookImportService.class, BookImportJobs.class, BookSearchIndex.class, BookPageCache.class, CatalogVersion.class,
+        JacksonAutoConfiguration.class})
+class BookImportServiceTest {
+
+    private static final int BOOKS = 5000;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void importsCsvRowsAndUpsertsThemByIsbn() {
+        entityManager.persistAndFlush(new Book("Old title", "Author", "isbn-1", "Publisher", 1990, "Fiction", 1));
+        StringBuilder csv = new StringBuilder("title,author,isbn,publishedYear,copiesAvailable\n");
+        for (int i = 0; i < BOOKS; i++) {
+            csv.append("Book ").append(i).append(",Author,isbn-").append(i).append(",2000,3\n");
+        }
+        csv.append(",Author,isbn-x,2000,3\n");                           // no title
+        csv.append("Book x,Author,isbn-y,n/a,3\n");                      // invalid year
+        csv.append("\"A title, with a comma\nand a line break\",Author,isbn-2,2001,5\r\n");
+
+        BookImportJob job = bookImportService.importBooks(stream(csv.toString()), MediaType.parseMediaType("text/csv"));
+
+        assertEquals(BookImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(BOOKS + 3, job.getRowsRead());
+        assertEquals(BOOKS - 1, job.getInserted());
+        // isbn-1 was already known, isbn-2 is repeated by the last row
+        assertEquals(2, job.getUpdated());
+        assertEquals(2, job.getRejected());
+        assertEquals(BOOKS + 1, job.getErrors().get(0).row());
+        assertEquals(BOOKS + 2, job.getErrors().get(1).row());
+
+        entityManager.clear();
+        assertEquals(BOOKS, bookRepository.count());
+        Book known = bookRepository.findByIsbnIn(List.of("isbn-1")).get(0);
+        assertEquals("Book 1", known.getTitle());
+        // The stock of a known book is left to checkouts and returns
+        assertEquals(1, known.getCopiesAvailable());
+        // The header has no publisher nor genre column: the values already known are kept
+        assertEquals("Publisher", known.getPublisher());
+        assertEquals("Fiction", known.getGenre());
+        Book repeated = bookRepository.findByIsbnIn(List.of("isbn-2")).get(0);
+        assertEquals("A title, with a comma\nand a line break", repeated.getTitle());
+        assertEquals(3, repeated.getCopiesAvailable());
+    }
+
+    @Test
+    void importsNdjsonRowsAndReportsInvalidLines() {
+        String ndjson = """
+                {"title": "Dune", "author": "Frank Herbert", "isbn": "978-0441013593", "copiesAvailable": 2}
+
+                {"title": "Emma", "isbn":
+                {"title": "Emma", "author": "Jane Austen", "isbn": "978-0141439587", "publishedYear": 1815}
+                """;
+
+        BookImportJob job = bookImportService.importBooks(stream(ndjson), MediaType.APPLICATION_NDJSON);
+
+        assertEquals(3, job.getRowsRead());
+        assertEquals(2, job.getInserted());
+        assertEquals(1, job.getRejected());
+        assertEquals(2, job.getErrors().get(0).row());
+    }
+
+    @Test
+    void updatesOnlyTheFieldsAnNdjsonRowHolds() {
+        entityManager.persistAndFlush(new Book("Dune", "Frank Herbert", "978-0441013593", "Chilton", 1965, "Science fiction", 4));
+        String ndjson = """
+                {"title": "Dune", "isbn": "978-0441013593", "publishedYear": 1990, "genre": null}
+                """;
+
+        BookImportJob job = bookImportService.importBooks(stream(ndjson), MediaType.APPLICATION_NDJSON);
+
+        assertEquals(1, job.getUpdated());
+        entityManager.clear();
+        Book book = bookRepository.findByIsbnIn(List.of("978-0441013593")).get(0);
+        assertEquals(1990, book.getPublishedYear());
+        assertEquals("Frank Herbert", book.getAuthor());
+        assertEquals("Chilton", book.getPublisher());
+        assertEquals("Science fiction", book.getGenre());
+        assertEquals(4, book.getCopiesAvailable());
+    }
+
+    @Test
+    void repeatedIsbnsKeepTheValuesOfEveryRow() {
+        entityManager.persistAndFlush(new Book("Emma", "Jane Austen", "978-0141439587", "John Murray", 1815, "Novel", 2));
+        String ndjson = """
+                {"title": "Dune", "author": "Frank Herbert", "isbn": "978-0441013593", "copiesAvailable": 2}
+                {"title": "Dune", "isbn": "978-0441013593", "publishedYear": 1965}
+                {"title": "Emma", "isbn": "978-0141439587", "genre": "Romance"}
+                {"title": "Emma", "isbn": "978-0141439587", "publisher": "Penguin"}
+                """;
+
+        BookImportJob job = bookImportService.importBooks(stream(ndjson), MediaType.APPLICATION_NDJSON);
+
+        assertEquals(1, job.getInserted());
+        assertEquals(3, job.getUpdated());
+        entityManager.clear();
+        Book dune = bookRepository.findByIsbnIn(List.of("978-0441013593")).get(0);
+        assertEquals("Frank Herbert", dune.getAuthor());
+        assertEquals(1965, dune.getPublishedYear());
+        assertEquals(2, dune.getCopiesAvailable());
+        Book emma = bookRepository.findByIsbnIn(List.of("978-0141439587")).get(0);
+        assertEquals("Romance", emma.getGenre());
+        assertEquals("Penguin", emma.getPublisher());
+        assertEquals("Jane Austen", emma.getAuthor());
+    }
+
+    @Test
+    void rejectsACsvHeaderWithAnUnknownColumn() {
+        assertThrows(InvalidImportException.class, () -> bookImportService.importBooks(
+                stream("title,isbn,colour\nDune,978-0441013593,red\n"), MediaType.parseMediaType("text/csv")));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TestConfiguration
+    static class Configuration {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.libraryman_api.book;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookPageCacheTest {
+
+    private static final Pageable FIRST_BY_TITLE = PageRequest.of(0, 2, Sort.by("title"));
+    private static final Pageable SECOND_BY_TITLE = PageRequest.of(1, 2, Sort.by("title"));
+    private static final Pageable FIRST_BY_YEAR = PageRequest.of(0, 2, Sort.by("publishedYear"));
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @Test
+    void aChangedBookOnlyDropsThePagesItIsOnOrSortedByWhatChanged() {
+        BookPageCache pages = new BookPageCache(cacheManager, 10);
+        loads(pages, FIRST_BY_TITLE, 1, 2);
+        loads(pages, SECOND_BY_TITLE, 3, 4);
+        loads(pages, FIRST_BY_YEAR, 5, 6);
+
+        pages.evictBook(1, Set.of("author"));
+        assertTrue(loads(pages, FIRST_BY_TITLE, 1, 2));
+        assertFalse(loads(pages, SECOND_BY_TITLE, 3, 4));
+        assertFalse(loads(pages, FIRST_BY_YEAR, 5, 6));
+
+        // Book 3 may have moved onto any page sorted by year
+        pages.evictBook(3, Set.of("publishedYear"));
+        assertFalse(loads(pages, FIRST_BY_TITLE, 1, 2));
+        assertTrue(loads(pages, SECOND_BY_TITLE, 3, 4));
+        assertTrue(loads(pages, FIRST_BY_YEAR, 5, 6));
+
+        pages.evictAll();
+        assertTrue(loads(pages, FIRST_BY_TITLE, 1, 2));
+        assertTrue(loads(pages, SECOND_BY_TITLE, 3, 4));
+    }
+
+    @Test
+    void aPageLoadedWhileAnInvalidationRunsIsNotCached() {
+        BookPageCache pages = new BookPageCache(cacheManager, 10);
+
+        // The book changes after the page was read from the database, before it is cached
+        Page<BookDto> page = pages.get(FIRST_BY_TITLE, () -> {
+            Page<BookDto> read = page(FIRST_BY_TITLE, 1, 2);
+            pages.evictBook(7, Set.of("genre"));
+            return read;
+        });
+
+        assertEquals(List.of(1, 2), page.map(BookDto::getBookId).getContent());
+        assertTrue(loads(pages, FIRST_BY_TITLE, 1, 2));
+        assertFalse(loads(pages, FIRST_BY_TITLE, 1, 2));
+    }
+
+    @Test
+    void noMorePagesThanTheMaximumAreKept() {
+        BookPageCache pages = new BookPageCache(cacheManager, 2);
+        loads(pages, FIRST_BY_TITLE, 1, 2);
+        loads(pages, SECOND_BY_TITLE, 3, 4);
+
+        assertTrue(loads(pages, FIRST_BY_YEAR, 5, 6));
+        assertTrue(loads(pages, FIRST_BY_YEAR, 5, 6));
+        assertFalse(loads(pages, FIRST_BY_TITLE, 1, 2));
+        assertFalse(loads(pages, SECOND_BY_TITLE, 3, 4));
+
+        // A page the cache region evicted on its own frees its place
+        cacheManager.getCache(BookPageCache.CACHE_NAME).evict(BookPageCache.BookPageKey.of(SECOND_BY_TITLE));
+        assertTrue(loads(pages, FIRST_BY_YEAR, 5, 6));
+        assertFalse(loads(pages, FIRST_BY_YEAR, 5, 6));
+        assertFalse(loads(pages, FIRST_BY_TITLE, 1, 2));
+    }
+
+    // Gets the page and tells whether it had to be loaded
+    private static boolean loads(BookPageCache pages, Pageable pageable, int... bookIds) {
+        boolean[] loaded = {false};
+        pages.get(pageable, () -> {
+            loaded[0] = true;
+            return page(pageable, bookIds);
+        });
+        return loaded[0];
+    }
+
+    private static Page<BookDto> page(Pageable pageable, int... bookIds) {
+        List<BookDto> books = Arrays.stream(bookIds).mapToObj(bookId -> {
+            BookDto book = new BookDto();
+            book.setBookId(bookId);
+            return book;
+        }).toList();
+        return new PageImpl<>(books, pageable, 6);
+    }
+}
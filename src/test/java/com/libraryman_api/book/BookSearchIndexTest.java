@@ -0,0 +1,161 @@
+package com.libraryman_api.book;
+
+import com.libraryman_api.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSearchIndexTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final BookSearchIndex index = new BookSearchIndex(bookRepository);
+
+    @Test
+    void tokensAreCaseFoldedAndStrippedOfAccents() {
+        assertEquals(List.of("gabriel", "garcia", "marquez", "2nd", "edition"),
+                BookSearchIndex.tokenize("Gabriel García-Márquez, 2nd ÉDITION"));
+        assertTrue(BookSearchIndex.tokenize("  ").isEmpty());
+
+        build(book(1, "Cien años de soledad", "Gabriel García Márquez", "Novel", "Sudamericana"));
+        assertEquals(List.of(1), ids("GARCÍA"));
+        assertEquals(List.of(1), ids("anos marquez"));
+    }
+
+    @Test
+    void exactMatchesRankAbovePrefixMatches() {
+        build(book(1, "Dune", "Frank Herbert", "Science fiction", "Chilton"),
+                book(2, "Dunes of Arrakis", "Brian Herbert", "Science fiction", "Tor"),
+                book(3, "Collected essays", "Dune Society", "Essays", "Tor"));
+
+        // Exact title match, then exact author match, then prefix title match
+        assertEquals(List.of(1, 3, 2), ids("dune"));
+        assertEquals(List.of(2), ids("dunes"));
+        // Single letters only match exactly
+        assertTrue(ids("d").isEmpty());
+    }
+
+    @Test
+    void everyQueryTermMustMatch() {
+        build(book(1, "Dune", "Frank Herbert", "Science fiction", "Chilton"),
+                book(2, "Dunes of Arrakis", "Brian Herbert", "Science fiction", "Tor"));
+
+        assertEquals(List.of(1), ids("dune frank"));
+        assertEquals(List.of(2), ids("dune brian"));
+        assertEquals(List.of(1, 2), ids("herbert science"));
+        assertTrue(ids("dune asimov").isEmpty());
+    }
+
+    @Test
+    void replaceAndRemoveKeepTheDocumentCount() {
+        Book dune = book(1, "Dune", "Frank Herbert", "Science fiction", "Chilton");
+        Book arrakis = book(2, "Dunes of Arrakis", "Brian Herbert", "Science fiction", "Tor");
+        build(dune, arrakis);
+        assertEquals(2, index.size());
+
+        index.add(dune);
+        assertEquals(2, index.size());
+
+        index.replace(dune, book(1, "Dune Messiah", "Frank Herbert", "Science fiction", "Putnam"));
+        assertEquals(2, index.size());
+        assertEquals(List.of(1), ids("messiah"));
+        assertTrue(ids("chilton").isEmpty());
+
+        index.remove(arrakis);
+        assertEquals(1, index.size());
+        assertEquals(List.of(1), ids("dune"));
+        index.remove(arrakis);
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void returnsTheRequestedPageWithTheTotalCount() {
+        Book[] books = new Book[5];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = book(i + 1, "Foundation " + (i + 1), "Isaac Asimov", "Science fiction", "Gnome");
+        }
+        build(books);
+
+        // Equal scores are ordered by ID
+        Page<Integer> second = index.search("foundation", PageRequest.of(1, 2));
+        assertEquals(List.of(3, 4), second.getContent());
+        assertEquals(5, second.getTotalElements());
+        assertEquals(List.of(5), index.search("foundation", PageRequest.of(2, 2)).getContent());
+        Page<Integer> beyond = index.search("foundation", PageRequest.of(3, 2));
+        assertTrue(beyond.getContent().isEmpty());
+        assertEquals(5, beyond.getTotalElements());
+    }
+
+    @Test
+    void searchesFailUntilTheFirstBuildCompletes() {
+        index.add(book(1, "Dune", "Frank Herbert", "Science fiction", "Chilton"));
+
+        assertThrows(ServiceUnavailableException.class, () -> ids("dune"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void rebuildSwapsInAFreshIndexKeepingTheChangesMadeMeanwhile() {
+        build(book(1, "Dune", "Frank Herbert", "Science fiction", "Chilton"));
+        Book hyperion = book(3, "Hyperion", "Dan Simmons", "Science fiction", "Doubleday");
+        when(bookRepository.findByBookIdGreaterThanOrderByBookIdAsc(anyInt(), any())).thenAnswer(invocation -> {
+            // Searches still use the previous index while the new one is built
+            assertEquals(List.of(1), ids("dune"));
+            index.add(hyperion);
+            return List.of(book(2, "Dune Messiah", "Frank Herbert", "Science fiction", "Putnam"));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(2), ids("dune"));
+        assertEquals(List.of(3), ids("hyperion"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void changesMadeBetweenTheReadAndTheApplyOfABatchWin() {
+        build(book(1, "Dune", "Frank Herbert", "Science fiction", "Chilton"),
+                book(2, "Emma", "Jane Austen", "Novel", "John Murray"));
+        Book dune = book(1, "Dune", "Frank Herbert", "Science fiction", "Chilton");
+        Book emma = book(2, "Emma", "Jane Austen", "Novel", "John Murray");
+        when(bookRepository.findByBookIdGreaterThanOrderByBookIdAsc(anyInt(), any())).thenAnswer(invocation -> {
+            // The batch is read, then the books are updated and deleted before it is applied
+            List<Book> batch = List.of(book(1, "Dune", "Frank Herbert", "Science fiction", "Chilton"),
+                    book(2, "Emma", "Jane Austen", "Novel", "John Murray"));
+            index.replace(dune, book(1, "Dune Messiah", "Frank Herbert", "Science fiction", "Putnam"));
+            index.remove(emma);
+            return batch;
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(1), ids("messiah"));
+        assertTrue(ids("chilton").isEmpty());
+        assertTrue(ids("emma").isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    private void build(Book... books) {
+        when(bookRepository.findByBookIdGreaterThanOrderByBookIdAsc(anyInt(), any())).thenReturn(List.of(books));
+        index.rebuild();
+    }
+
+    private List<Integer> ids(String query) {
+        return index.search(query, PageRequest.of(0, 10)).getContent();
+    }
+
+    private static Book book(int bookId, String title, String author, String genre, String publisher) {
+        Book book = new Book(title, author, "isbn-" + bookId, publisher, 2000, genre, 1);
+        book.setBookId(bookId);
+        return book;
+    }
+}
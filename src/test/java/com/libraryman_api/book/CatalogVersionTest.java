@@ -0,0 +1,38 @@
+package com.libraryman_api.book;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CatalogVersionTest {
+
+    @Test
+    void movesTheTagForwardOnEachChange() {
+        CatalogVersion catalogVersion = new CatalogVersion();
+        String before = catalogVersion.etag();
+
+        assertEquals(before, catalogVersion.etag());
+        catalogVersion.changed();
+        assertNotEquals(before, catalogVersion.etag());
+    }
+
+    @Test
+    void movesTheTagAgainOnceTheTransactionCompletes() {
+        CatalogVersion catalogVersion = new CatalogVersion();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            catalogVersion.changed();
+            // A listing read before the commit gets this tag, which must not survive the commit
+            String duringTransaction = catalogVersion.etag();
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertNotEquals(duringTransaction, catalogVersion.etag());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
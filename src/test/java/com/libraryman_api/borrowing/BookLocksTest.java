@@ -0,0 +1,112 @@
+package com.libraryman_api.borrowing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookLocksTest {
+
+    private static final int BOOKS = 32;
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+
+    @Test
+    void concurrentCheckoutsOfTheSameBookAreSerialized() throws Exception {
+        BookLocks locks = new BookLocks(16);
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int[] copies = new int[BOOKS];
+        for (int i = 0; i < BOOKS; i++) {
+            copies[i] = threads * OPERATIONS_PER_THREAD;
+        }
+
+        runConcurrently(threads, thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                int bookId = (thread + i) % BOOKS;
+                locks.withLock(bookId, () -> {
+                    // Deliberately non-atomic read-modify-write, like a checkout
+                    int available = copies[bookId];
+                    copies[bookId] = available - 1;
+                    return null;
+                });
+            }
+        });
+
+        long remaining = 0;
+        for (int available : copies) {
+            remaining += available;
+        }
+        assertEquals((long) BOOKS * threads * OPERATIONS_PER_THREAD - (long) threads * OPERATIONS_PER_THREAD, remaining);
+    }
+
+    @Test
+    void checkoutOfAnotherBookDoesNotWaitForAHeldLock() throws Exception {
+        BookLocks locks = new BookLocks(64);
+        int otherBook = 2;
+        while (locks.lockFor(otherBook) == locks.lockFor(1)) {
+            otherBook++;
+        }
+        assertNotSame(locks.lockFor(1), locks.lockFor(otherBook));
+
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> locks.withLock(1, () -> {
+                held.countDown();
+                await(release);
+                return null;
+            }));
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+
+            int unrelatedBook = otherBook;
+            assertTrue(locks.lockFor(unrelatedBook).tryLock(1, TimeUnit.SECONDS));
+            locks.lockFor(unrelatedBook).unlock();
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void runConcurrently(int threads, ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    await(start);
+                    body.run(thread);
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
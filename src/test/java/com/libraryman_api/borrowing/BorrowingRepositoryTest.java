@@ -0,0 +1,93 @@
+package com.libraryman_api.borrowing;
+
+import com.libraryman_api.book.Book;
+import com.libraryman_api.fine.Fines;
+import com.libraryman_api.member.Members;
+import com.libraryman_api.member.Role;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BorrowingRepositoryTest {
+
+    private static final int BORROWINGS = 100;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private int memberId;
+
+    @BeforeEach
+    void setUp() {
+        Members member = new Members("Ada", "ada@example.com", "hash", Role.USER, new Date());
+        member.setUsername("ada");
+        entityManager.persist(member);
+        memberId = member.getMemberId();
+        for (int i = 0; i < BORROWINGS; i++) {
+            Book book = new Book("Book " + i, "Author", "isbn-" + i, "Publisher", 2000, "Fiction", 1);
+            entityManager.persist(book);
+            Borrowings borrowing = new Borrowings(book, member, new Date(), new Date(), null);
+            if (i % 2 == 0) {
+                Fines fine = new Fines(BigDecimal.TEN, false);
+                entityManager.persist(fine);
+                borrowing.setFine(fine);
+            }
+            entityManager.persist(borrowing);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listsAPageWithItsAssociationsInOneQuery() {
+        Page<Borrowings> page = borrowingRepository.findAll(PageRequest.of(0, BORROWINGS, Sort.by("borrowingId")));
+        touchAssociations(page);
+
+        assertEquals(BORROWINGS, page.getNumberOfElements());
+        // The page itself and its count
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listsTheBorrowingsOfAMemberInOneQuery() {
+        Page<Borrowings> page = borrowingRepository.findByMember_memberId(memberId, PageRequest.of(0, BORROWINGS));
+        touchAssociations(page);
+
+        assertEquals(BORROWINGS, page.getNumberOfElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private static void touchAssociations(Page<Borrowings> page) {
+        for (Borrowings borrowing : page) {
+            borrowing.getBook().getTitle();
+            borrowing.getMember().getEmail();
+            if (borrowing.getFine() != null) {
+                borrowing.getFine().getAmount();
+            }
+        }
+    }
+}
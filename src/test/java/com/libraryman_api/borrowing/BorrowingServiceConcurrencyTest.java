@@ -0,0 +1,220 @@
+package com.libraryman_api.borrowing;
+
+import com.libraryman_api.book.Book;
+import com.libraryman_api.book.BookDto;
+import com.libraryman_api.book.BookPageCache;
+import com.libraryman_api.book.BookRepository;
+import com.libraryman_api.book.BookSearchIndex;
+import com.libraryman_api.book.BookService;
+import com.libraryman_api.book.CatalogVersion;
+import com.libraryman_api.exception.ResourceNotFoundException;
+import com.libraryman_api.export.RowExporter;
+import com.libraryman_api.member.MemberRepository;
+import com.libraryman_api.member.MemberService;
+import com.libraryman_api.member.Members;
+import com.libraryman_api.member.Role;
+import com.libraryman_api.member.dto.MembersDto;
+import com.libraryman_api.notification.NotificationOutbox;
+import com.libraryman_api.notification.OutboxNotificationRepository;
+import com.libraryman_api.pagination.KeysetQuery;
+import com.libraryman_api.pagination.ProjectionQuery;
+import com.libraryman_api.tracing.TraceBuffer;
+import com.libraryman_api.tracing.TraceFile;
+import com.libraryman_api.tracing.Tracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+// Not transactional, so that every checkout and return commits on its own, as it does behind the controller
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BorrowingService.class, BookService.class, BookSearchIndex.class, BookPageCache.class, CatalogVersion.class,
+        KeysetQuery.class, ProjectionQuery.class, RowExporter.class, BookLocks.class, NotificationOutbox.class,
+        Tracer.class, TraceBuffer.class, TraceFile.class, JacksonAutoConfiguration.class})
+class BorrowingServiceConcurrencyTest {
+
+    private static final int COPIES = 3;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BorrowingService borrowingService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private OutboxNotificationRepository outboxRepository;
+
+    @MockBean
+    private MemberService memberService;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        Members member = new Members("Ada", "ada@example.com", "hash", Role.USER, new Date());
+        member.setUsername("ada");
+        Members saved = memberRepository.save(member);
+        when(memberService.getMemberById(anyInt())).thenAnswer(invocation -> Optional.of(dto(saved)));
+        when(memberService.EntityToDto(any())).thenAnswer(invocation -> dto(saved));
+        when(memberService.DtoEntity(any())).thenAnswer(invocation -> memberRepository.findById(saved.getMemberId()).orElseThrow());
+        book = bookRepository.save(new Book("Dune", "Frank Herbert", "isbn-1", "Chilton", 1965, "Science fiction", COPIES));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+        borrowingRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverLendMoreCopiesThanAvailable() throws Exception {
+        List<Object> outcomes = runConcurrently(THREADS, () -> borrowingService.borrowBook(request()));
+
+        List<BorrowingsDto> borrowed = successes(outcomes);
+        assertEquals(COPIES, borrowed.size());
+        // Every other checkout found no copy left, none failed otherwise
+        outcomes.stream().filter(outcome -> !(outcome instanceof BorrowingsDto))
+                .forEach(outcome -> assertInstanceOf(ResourceNotFoundException.class, outcome));
+        assertEquals(0, copiesAvailable());
+        assertEquals(COPIES, borrowingRepository.count());
+    }
+
+    @Test
+    void concurrentReturnsOfTheSameBorrowingReleaseOneCopy() throws Exception {
+        List<BorrowingsDto> borrowed = new ArrayList<>();
+        for (int i = 0; i < COPIES; i++) {
+            borrowed.add(borrowingService.borrowBook(request()));
+        }
+        assertEquals(0, copiesAvailable());
+
+        // Each borrowing is returned by several threads at once, while others try to borrow the copies back
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (BorrowingsDto borrowing : borrowed) {
+            for (int i = 0; i < 3; i++) {
+                tasks.add(() -> borrowingService.returnBook(borrowing.getBorrowingId()));
+            }
+            tasks.add(() -> borrowingService.borrowBook(request()));
+        }
+        List<Object> outcomes = runConcurrently(tasks);
+
+        long returned = outcomes.stream().filter(outcome -> outcome instanceof BorrowingsDto dto && dto.getReturnDate() != null).count();
+        long borrowedAgain = outcomes.stream().filter(outcome -> outcome instanceof BorrowingsDto dto && dto.getReturnDate() == null).count();
+        assertEquals(COPIES, returned);
+        outcomes.stream().filter(outcome -> !(outcome instanceof BorrowingsDto))
+                .forEach(outcome -> assertInstanceOf(ResourceNotFoundException.class, outcome));
+        assertEquals(COPIES - borrowedAgain, copiesAvailable());
+    }
+
+    private BorrowingsDto request() {
+        BorrowingsDto borrowing = new BorrowingsDto();
+        BookDto bookDto = new BookDto();
+        bookDto.setBookId(book.getBookId());
+        borrowing.setBook(bookDto);
+        MembersDto member = new MembersDto();
+        member.setMemberId(memberRepository.findAll().get(0).getMemberId());
+        borrowing.setMember(member);
+        return borrowing;
+    }
+
+    private int copiesAvailable() {
+        return bookRepository.findById(book.getBookId()).orElseThrow().getCopiesAvailable();
+    }
+
+    private static MembersDto dto(Members member) {
+        return new MembersDto(member.getMemberId(), member.getName(), member.getUsername(), member.getEmail(),
+                member.getPassword(), member.getRole(), member.getMembershipDate());
+    }
+
+    private static List<BorrowingsDto> successes(List<Object> outcomes) {
+        return outcomes.stream().filter(BorrowingsDto.class::isInstance).map(BorrowingsDto.class::cast).toList();
+    }
+
+    private static List<Object> runConcurrently(int threads, Callable<Object> task) throws Exception {
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(task);
+        }
+        return runConcurrently(tasks);
+    }
+
+    // Starts the tasks at once and returns the result of each, or the exception it failed with
+    private static List<Object> runConcurrently(List<Callable<Object>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Callable<Object> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<Object> outcomes = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                try {
+                    outcomes.add(future.get(60, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    outcomes.add(e.getCause());
+                }
+            }
+            return outcomes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @TestConfiguration
+    static class Configuration {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.libraryman_api.email;
+
+import com.libraryman_api.notification.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailServiceTest {
+
+    private final ThreadPoolTaskExecutor mailExecutor = new ThreadPoolTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        mailExecutor.shutdown();
+    }
+
+    @Test
+    void slowDeliveryIsNotHandedOverAgainByTheRetry() throws Exception {
+        mailExecutor.setCorePoolSize(1);
+        mailExecutor.setQueueCapacity(10);
+        mailExecutor.initialize();
+
+        PendingEmailRepository pendingEmailRepository = mock(PendingEmailRepository.class);
+        when(pendingEmailRepository.save(any())).thenAnswer(invocation -> {
+            PendingEmail email = invocation.getArgument(0);
+            ReflectionTestUtils.setField(email, "pendingEmailId", 1);
+            return email;
+        });
+        JavaMailSender mailSender = mock(JavaMailSender.class);
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        PooledMailTransport mailTransport = mock(PooledMailTransport.class);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            // An SMTP server slower than the retry delay
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(mailTransport).send(any(MimeMessage.class));
+
+        EmailService emailService = new EmailService(mock(NotificationRepository.class), mailSender, mailTransport,
+                pendingEmailRepository, mailExecutor, new SimpleMeterRegistry(), Duration.ZERO, 100, 5);
+        ReflectionTestUtils.setField(emailService, "domainName", "library@example.com");
+
+        emailService.sendEmail("ada@example.com", "Hello", "Welcome");
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        // With no retry delay the row is due at once, while its delivery is still running
+        PendingEmail stored = pendingEmailRepository.save(new PendingEmail("ada@example.com", "Welcome", "Hello", null, null));
+        when(pendingEmailRepository.findByAvailableAtLessThanEqualOrderByPendingEmailIdAsc(any(), any()))
+                .thenReturn(List.of(stored));
+        emailService.retryPendingEmails();
+        emailService.retryPendingEmails();
+        release.countDown();
+
+        // Runs whatever was queued before checking that the email went out once
+        mailExecutor.getThreadPoolExecutor().shutdown();
+        assertTrue(mailExecutor.getThreadPoolExecutor().awaitTermination(15, TimeUnit.SECONDS));
+        verify(pendingEmailRepository).deleteById(1);
+        verify(mailTransport, times(1)).send(any(MimeMessage.class));
+    }
+}
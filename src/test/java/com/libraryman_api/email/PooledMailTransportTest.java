@@ -0,0 +1,244 @@
+package com.libraryman_api.email;
+
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PooledMailTransportTest {
+
+    private SmtpStandIn smtp;
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        smtp = new SmtpStandIn();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.port());
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void sendsManyMessagesPerConnection() throws Exception {
+        PooledMailTransport transport = new PooledMailTransport(mailSender, 2, 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofSeconds(5));
+        try {
+            for (int i = 0; i < 10; i++) {
+                transport.send(message(i));
+            }
+
+            assertEquals(10, smtp.messages());
+            assertEquals(1, smtp.connections());
+        } finally {
+            transport.shutdown();
+        }
+    }
+
+    @Test
+    void replacesAConnectionAfterItsMessageLimit() throws Exception {
+        PooledMailTransport transport = new PooledMailTransport(mailSender, 1, 3,
+                Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofSeconds(5));
+        try {
+            for (int i = 0; i < 7; i++) {
+                transport.send(message(i));
+            }
+
+            assertEquals(7, smtp.messages());
+            assertEquals(3, smtp.connections());
+        } finally {
+            transport.shutdown();
+        }
+    }
+
+    @Test
+    void closesIdleConnections() throws Exception {
+        PooledMailTransport transport = new PooledMailTransport(mailSender, 1, 100,
+                Duration.ZERO, Duration.ofMinutes(1), Duration.ofSeconds(5));
+        try {
+            transport.send(message(1));
+            transport.closeIdleConnections();
+            transport.send(message(2));
+
+            assertEquals(2, smtp.connections());
+        } finally {
+            transport.shutdown();
+        }
+    }
+
+    @Test
+    void checksOnlyTheConnectionsLeftUnusedForAWhile() throws Exception {
+        PooledMailTransport recent = new PooledMailTransport(mailSender, 1, 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofSeconds(5));
+        try {
+            for (int i = 0; i < 5; i++) {
+                recent.send(message(i));
+            }
+            assertEquals(0, smtp.noops());
+        } finally {
+            recent.shutdown();
+        }
+
+        PooledMailTransport unused = new PooledMailTransport(mailSender, 1, 100,
+                Duration.ofMinutes(1), Duration.ZERO, Duration.ofSeconds(5));
+        try {
+            for (int i = 0; i < 5; i++) {
+                unused.send(message(i));
+            }
+            // Every reuse of the connection opened by the first message is checked
+            assertEquals(4, smtp.noops());
+            assertEquals(2, smtp.connections());
+        } finally {
+            unused.shutdown();
+        }
+    }
+
+    // Compares the throughput with one connection per message, as JavaMailSenderImpl sends
+    @Test
+    void outperformsAConnectionPerMessage() throws Exception {
+        int count = 200;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            mailSender.send(message(i));
+        }
+        double unpooled = count / seconds(start);
+        int unpooledConnections = smtp.connections();
+
+        PooledMailTransport transport = new PooledMailTransport(mailSender, 1, 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofSeconds(5));
+        try {
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                transport.send(message(i));
+            }
+            double pooled = count / seconds(start);
+
+            assertEquals(count, unpooledConnections);
+            assertEquals(2, smtp.connections() - unpooledConnections);
+            assertTrue(pooled > unpooled, "pooled " + pooled + " msg/s, per-message connections " + unpooled + " msg/s");
+        } finally {
+            transport.shutdown();
+        }
+    }
+
+    private MimeMessage message(int i) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "utf-8");
+        helper.setFrom("library@example.com");
+        helper.setTo("member" + i + "@example.com");
+        helper.setSubject("Message " + i);
+        helper.setText("<p>Body " + i + "</p>", true);
+        return message;
+    }
+
+    private static double seconds(long start) {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    // Minimal SMTP server accepting every message, counting connections and messages
+    private static final class SmtpStandIn implements AutoCloseable {
+
+        private final ServerSocket server = new ServerSocket(0);
+        private final ExecutorService sessions = Executors.newCachedThreadPool();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger messages = new AtomicInteger();
+        private final AtomicInteger noops = new AtomicInteger();
+
+        SmtpStandIn() throws IOException {
+            sessions.submit(this::accept);
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        int connections() {
+            return connections.get();
+        }
+
+        int messages() {
+            return messages.get();
+        }
+
+        int noops() {
+            return noops.get();
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.incrementAndGet();
+                    sessions.submit(() -> session(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void session(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 localhost ready");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                    switch (command) {
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            while (!".".equals(in.readLine())) {
+                                // Skip the message content
+                            }
+                            messages.incrementAndGet();
+                            reply(out, "250 OK");
+                        }
+                        case "NOOP" -> {
+                            noops.incrementAndGet();
+                            reply(out, "250 OK");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // The client disconnected
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+            sessions.shutdownNow();
+        }
+    }
+}
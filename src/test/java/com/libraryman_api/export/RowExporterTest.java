@@ -0,0 +1,95 @@
+package com.libraryman_api.export;
+
+import com.libraryman_api.book.Book;
+import com.libraryman_api.book.BookRepository;
+import com.libraryman_api.pagination.FieldSet;
+import com.libraryman_api.pagination.KeysetQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The slices are read in transactions of their own, so the books are committed rather than rolled back
+@DataJpaTest(properties = "libraryman.export.slice-size=100")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RowExporter.class, KeysetQuery.class, JacksonAutoConfiguration.class})
+class RowExporterTest {
+
+    private static final int BOOKS = 250;
+    private static final Set<String> FIELDS = Set.of("bookId", "title", "isbn");
+
+    @Autowired
+    private RowExporter rowExporter;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new Book("Book " + i + (i == 7 ? ", with a comma" : ""), "Author", "isbn-" + i, "Publisher", 2000, "Fiction", 1));
+        }
+        bookRepository.saveAll(books);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void streamsEveryRowAsCsvAcrossSlices() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = rowExporter.export("books", Book.class, "bookId",
+                FieldSet.of(List.of("isbn,title"), FIELDS), ExportFormat.CSV, null);
+
+        String[] lines = write(response).split("\r\n");
+
+        assertEquals("attachment; filename=\"books.csv\"", response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals(BOOKS + 1, lines.length);
+        assertEquals("isbn,title", lines[0]);
+        assertEquals("isbn-7,\"Book 7, with a comma\"", lines[8]);
+        assertEquals("isbn-249,Book 249", lines[BOOKS]);
+    }
+
+    @Test
+    void compressesNdjsonWhenTheClientAcceptsGzip() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = rowExporter.export("books", Book.class, "bookId",
+                FieldSet.of(List.of("isbn"), FIELDS), ExportFormat.NDJSON, "br, gzip;q=0.8");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+        String ndjson = new String(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(BOOKS, ndjson.lines().count());
+        assertTrue(ndjson.startsWith("{\"isbn\":\"isbn-0\"}\n"));
+    }
+
+    private static String write(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,55 @@
+package com.libraryman_api.notification;
+
+import com.libraryman_api.member.Members;
+import com.libraryman_api.member.Role;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class NotificationBatchInsertTest {
+
+    private static final int NOTIFICATIONS = 1000;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void insertsNotificationsInBatchesWithPooledIds() {
+        Members member = new Members("Ada", "ada@example.com", "hash", Role.USER, new Date());
+        entityManager.persistAndFlush(member);
+        List<Notifications> notifications = new ArrayList<>();
+        for (int i = 0; i < NOTIFICATIONS; i++) {
+            notifications.add(new Notifications(member, "Message " + i, NotificationType.REMINDER,
+                    new Timestamp(System.currentTimeMillis()), null));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        notificationRepository.saveAll(notifications);
+        entityManager.flush();
+
+        assertEquals(NOTIFICATIONS, statistics.getEntityInsertCount());
+        // About one sequence call per 100 IDs and one statement per batch of 50 inserts, instead of two statements per row
+        assertTrue(statistics.getPrepareStatementCount() < NOTIFICATIONS / 10,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+}
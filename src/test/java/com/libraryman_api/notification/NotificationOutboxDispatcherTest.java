@@ -0,0 +1,118 @@
+package com.libraryman_api.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libraryman_api.book.Book;
+import com.libraryman_api.book.BookRepository;
+import com.libraryman_api.borrowing.BorrowingRepository;
+import com.libraryman_api.borrowing.Borrowings;
+import com.libraryman_api.member.MemberRepository;
+import com.libraryman_api.member.Members;
+import com.libraryman_api.member.Role;
+import com.libraryman_api.tracing.TraceBuffer;
+import com.libraryman_api.tracing.TraceFile;
+import com.libraryman_api.tracing.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+// Not transactional, so that the dispatcher commits and rolls back its own transactions
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationOutboxDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private OutboxNotificationRepository outboxRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+        notificationRepository.deleteAll();
+        borrowingRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void failingRowRollsBackAloneAndIsDroppedAfterMaxAttempts() {
+        Members member = new Members("Ada", "ada@example.com", "hash", Role.USER, new Date());
+        member.setUsername("ada");
+        memberRepository.save(member);
+        int poisonId = 0;
+        for (int i = 0; i < 3; i++) {
+            Book book = bookRepository.save(new Book("Book " + i, "Author", "isbn-" + i, "Publisher", 2000, "Fiction", 1));
+            Borrowings borrowing = borrowingRepository.save(new Borrowings(book, member, new Date(), new Date(), null));
+            outboxRepository.save(new OutboxNotification(NotificationType.BORROW, borrowing.getBorrowingId(),
+                    new Timestamp(System.currentTimeMillis())));
+            if (i == 1) {
+                poisonId = borrowing.getBorrowingId();
+            }
+        }
+
+        int failingBorrowingId = poisonId;
+        NotificationService notificationService = mock(NotificationService.class);
+        doAnswer(invocation -> {
+            Borrowings borrowing = invocation.getArgument(0);
+            if (borrowing.getBorrowingId() == failingBorrowingId) {
+                // Fails inside a repository call, which marks the transaction of the row rollback-only
+                notificationRepository.saveAndFlush(new Notifications());
+            }
+            notificationRepository.save(new Notifications(borrowing.getMember(), "Borrowed", NotificationType.BORROW,
+                    new Timestamp(System.currentTimeMillis()), null));
+            return null;
+        }).when(notificationService).borrowBookNotification(any());
+
+        // No retry delay, so that the failed row is due again on the next dispatch
+        NotificationOutboxDispatcher dispatcher = new NotificationOutboxDispatcher(outboxRepository, borrowingRepository,
+                notificationService, new TransactionTemplate(transactionManager),
+                new Tracer(new TraceBuffer(1), new TraceFile(new ObjectMapper(), "", Duration.ZERO), false, 1),
+                100, MAX_ATTEMPTS, Duration.ZERO);
+
+        dispatcher.dispatch();
+
+        assertEquals(2, notificationRepository.count());
+        List<OutboxNotification> remaining = outboxRepository.findAll();
+        assertEquals(1, remaining.size());
+        assertEquals(failingBorrowingId, remaining.get(0).getBorrowingId());
+        assertEquals(1, remaining.get(0).getAttempts());
+
+        dispatcher.dispatch();
+        assertEquals(2, outboxRepository.findAll().get(0).getAttempts());
+
+        dispatcher.dispatch();
+        assertTrue(outboxRepository.findAll().isEmpty());
+        assertEquals(2, notificationRepository.count());
+    }
+}
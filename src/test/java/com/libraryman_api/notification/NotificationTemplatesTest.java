@@ -0,0 +1,67 @@
+package com.libraryman_api.notification;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationTemplatesTest {
+
+    private final NotificationTemplates templates = new NotificationTemplates(false);
+
+    @Test
+    void rendersTheMessageOfAType() {
+        Date dueDate = Date.from(LocalDateTime.of(2025, 3, 5, 14, 30).atZone(ZoneId.systemDefault()).toInstant());
+
+        String message = templates.message(NotificationType.REMINDER, "Dune",
+                NotificationTemplates.format(dueDate, NotificationTemplates.DATE_TIME));
+
+        assertEquals("This is a friendly reminder that the due date to return 'Dune' is approaching. "
+                + "Please ensure that you return the book by " + NotificationTemplates.DATE_TIME.format(
+                LocalDateTime.of(2025, 3, 5, 14, 30)) + " to avoid any late fees. 📅"
+                + "<br><br>If you need more time, consider renewing your book through our online portal or by contacting us."
+                + "<br><br>Thank you, and happy reading! 😊", message);
+    }
+
+    @Test
+    void rendersTheEmailLayout() {
+        String email = templates.email("Payment Received", "Ada", "Thanks!");
+
+        assertTrue(email.startsWith("<div style="));
+        assertTrue(email.contains("display:inline-block\">Payment Received</span>"));
+        assertTrue(email.contains(">Hi Ada,</p>"));
+        assertTrue(email.contains(">Thanks!</p><p>Best regards,</p>"));
+        assertTrue(email.endsWith("</div></div>"));
+    }
+
+    @Test
+    void rendersTheSameWithoutTheReusedBuffer() {
+        NotificationTemplates virtualThreadTemplates = new NotificationTemplates(true);
+
+        assertEquals(templates.message(NotificationType.PAID, "2.50", "Dune"),
+                virtualThreadTemplates.message(NotificationType.PAID, "2.50", "Dune"));
+        assertEquals(templates.email("Payment Received", "Ada", "Thanks!"),
+                virtualThreadTemplates.email("Payment Received", "Ada", "Thanks!"));
+    }
+
+    @Test
+    void rejectsUnknownPlaceholders() {
+        assertThrows(IllegalArgumentException.class, () -> NotificationTemplate.parse("Hi {{name}}", "title"));
+        assertThrows(IllegalArgumentException.class, () -> NotificationTemplate.parse("Hi {{title", "title"));
+    }
+
+    @Test
+    void rendersSegmentsInOrder() {
+        NotificationTemplate template = NotificationTemplate.parse("{{b}} then {{a}}, {{b}}!", "a", "b");
+        StringBuilder out = new StringBuilder("> ");
+
+        template.renderTo(out, 1, 2);
+
+        assertEquals("> 2 then 1, 2!", out.toString());
+    }
+}
@@ -0,0 +1,141 @@
+package com.libraryman_api.pagination;
+
+import com.libraryman_api.book.Book;
+import com.libraryman_api.book.BookService;
+import com.libraryman_api.borrowing.BorrowingService;
+import com.libraryman_api.borrowing.Borrowings;
+import com.libraryman_api.exception.GlobalExceptionHandler;
+import com.libraryman_api.exception.InvalidCursorException;
+import com.libraryman_api.exception.InvalidFieldsException;
+import com.libraryman_api.fine.Fines;
+import com.libraryman_api.member.MemberService;
+import com.libraryman_api.member.Members;
+import com.libraryman_api.member.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import({ProjectionQuery.class, KeysetQuery.class})
+class ProjectionQueryTest {
+
+    @Autowired
+    private ProjectionQuery projectionQuery;
+
+    @Autowired
+    private KeysetQuery keysetQuery;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Borrowings fined;
+    private Borrowings unfined;
+
+    @BeforeEach
+    void setUp() {
+        Members member = new Members("Ada", "ada@example.com", "hash", Role.USER, new Date());
+        member.setUsername("ada");
+        entityManager.persist(member);
+        Book dune = entityManager.persist(new Book("Dune", "Frank Herbert", "isbn-1", "Chilton", 1965, "Science fiction", 1));
+        Book brave = entityManager.persist(new Book("Brave New World", "Aldous Huxley", "isbn-2", "Chatto", 1932, "Science fiction", 1));
+        Book emma = entityManager.persist(new Book("Emma", "Jane Austen", "isbn-3", "John Murray", 1815, "Novel", 1));
+
+        fined = new Borrowings(dune, member, new Date(), new Date(), new Date());
+        fined.setFine(entityManager.persist(new Fines(new BigDecimal("2.50"), false)));
+        entityManager.persist(fined);
+        unfined = entityManager.persist(new Borrowings(brave, member, new Date(), new Date(), null));
+        entityManager.persist(new Borrowings(emma, member, new Date(), new Date(), null));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void unknownFieldsAreRejectedWithABadRequest() {
+        InvalidFieldsException ex = assertThrows(InvalidFieldsException.class,
+                () -> FieldSet.of(List.of("title,colour"), BookService.LIST_FIELDS));
+        assertTrue(ex.getMessage().endsWith("colour"));
+        assertEquals(HttpStatus.BAD_REQUEST, new GlobalExceptionHandler()
+                .invalidFieldsException(ex, new ServletWebRequest(new MockHttpServletRequest())).getStatusCode());
+
+        assertThrows(InvalidFieldsException.class, () -> FieldSet.of(List.of(" , "), BookService.LIST_FIELDS));
+        assertEquals(List.of("isbn", "title"), FieldSet.of(List.of("isbn, title", "isbn"), BookService.LIST_FIELDS).paths());
+    }
+
+    @Test
+    void passwordIsNeverSelectableOnMembers() {
+        assertThrows(InvalidFieldsException.class, () -> FieldSet.of(List.of("name,password"), MemberService.LIST_FIELDS));
+        assertThrows(InvalidFieldsException.class, () -> FieldSet.of(List.of("member.password"), BorrowingService.LIST_FIELDS));
+    }
+
+    @Test
+    void nestedFieldsAreReadThroughLeftJoins() {
+        FieldSet fields = FieldSet.of(List.of("borrowingId,book.title,fine.amount"), BorrowingService.LIST_FIELDS);
+
+        Page<Map<String, Object>> page = projectionQuery.findPage(Borrowings.class,
+                PageRequest.of(0, 10, Sort.by("borrowingId")), fields);
+
+        // The borrowings without a fine are kept by the left join
+        assertEquals(3, page.getTotalElements());
+        Map<String, Object> first = page.getContent().get(0);
+        assertEquals(List.of("borrowingId", "book", "fine"), List.copyOf(first.keySet()));
+        assertEquals(fined.getBorrowingId(), first.get("borrowingId"));
+        assertEquals(Map.of("title", "Dune"), first.get("book"));
+        assertEquals(0, new BigDecimal("2.50").compareTo((BigDecimal) nested(first, "fine").get("amount")));
+
+        Map<String, Object> second = page.getContent().get(1);
+        assertEquals(unfined.getBorrowingId(), second.get("borrowingId"));
+        assertEquals("Brave New World", nested(second, "book").get("title"));
+        assertTrue(nested(second, "fine").containsKey("amount"));
+        assertNull(nested(second, "fine").get("amount"));
+    }
+
+    @Test
+    void keysetSlicesSelectTheFieldsAcrossCursors() {
+        FieldSet fields = FieldSet.of(List.of("borrowingId,book.title"), BorrowingService.LIST_FIELDS);
+        Pageable byTitle = PageRequest.of(0, 2, Sort.by("book.title"));
+
+        KeysetSlice<Map<String, Object>> first = keysetQuery.find(Borrowings.class, "borrowingId", byTitle, null, fields);
+        assertEquals(List.of("Brave New World", "Dune"), titles(first));
+        // The sort value and ID behind the cursor are not returned with the rows
+        assertEquals(List.of("borrowingId", "book"), List.copyOf(first.getContent().get(0).keySet()));
+        assertNotNull(first.getNextCursor());
+
+        KeysetSlice<Map<String, Object>> second = keysetQuery.find(Borrowings.class, "borrowingId", byTitle,
+                first.getNextCursor(), fields);
+        assertEquals(List.of("Emma"), titles(second));
+        assertNull(second.getNextCursor());
+
+        assertThrows(InvalidCursorException.class, () -> keysetQuery.find(Borrowings.class, "borrowingId",
+                PageRequest.of(0, 2, Sort.by("borrowDate")), first.getNextCursor(), fields));
+    }
+
+    private static List<Object> titles(KeysetSlice<Map<String, Object>> slice) {
+        return slice.getContent().stream().map(row -> nested(row, "book").get("title")).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> nested(Map<String, Object> row, String field) {
+        return (Map<String, Object>) row.get(field);
+    }
+}
@@ -0,0 +1,81 @@
+package com.libraryman_api.security.config;
+
+import com.libraryman_api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void hashesOnThePoolAndRecordsTheLatency() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new PlainEncoder(null, null), 1, 1,
+                Duration.ofSeconds(5), registry);
+        try {
+            String encoded = encoder.encode("secret");
+
+            assertTrue(encoder.matches("secret", encoded));
+            assertEquals(1, registry.get("libraryman.password.hashing").tag("operation", "encode").timer().count());
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsHashingWhenThePoolAndQueueAreFull() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new PlainEncoder(started, release), 1, 1,
+                Duration.ofSeconds(5), registry);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            callers.submit(() -> encoder.encode("running"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            callers.submit(() -> encoder.encode("queued"));
+            while (registry.get("libraryman.password.hashing.queue").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(ServiceUnavailableException.class, () -> encoder.encode("rejected"));
+            assertEquals(1, registry.get("libraryman.password.hashing.rejected").counter().count());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            encoder.shutdown();
+        }
+    }
+
+    // Stands in for BCrypt; optionally blocks until released to hold the hashing thread
+    private record PlainEncoder(CountDownLatch started, CountDownLatch release)
+            implements org.springframework.security.crypto.password.PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (started != null) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "{plain}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return ("{plain}" + rawPassword).equals(encodedPassword);
+        }
+    }
+}
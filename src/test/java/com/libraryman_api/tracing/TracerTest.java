@@ -0,0 +1,175 @@
+package com.libraryman_api.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TracerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void spansAreRecordedInStartOrderWithTheirDepth() throws Exception {
+        TraceBuffer buffer = new TraceBuffer(10);
+        Tracer tracer = new Tracer(buffer, new TraceFile(objectMapper, "", Duration.ZERO), true, 100);
+
+        String result = tracer.trace("borrow", () -> {
+            long lockRequested = System.nanoTime();
+            tracer.spanSince("lock.wait", lockRequested);
+            return tracer.span("transaction", () -> {
+                tracer.span("book.find", () -> sleep(2));
+                return tracer.span("borrowing.save", () -> "saved");
+            });
+        });
+
+        assertEquals("saved", result);
+        Trace trace = buffer.find(null, Duration.ZERO, 10).get(0);
+        assertEquals("borrow", trace.name());
+        assertNull(trace.error());
+        assertEquals(List.of("lock.wait", "transaction", "book.find", "borrowing.save"),
+                trace.spans().stream().map(Trace.Span::name).toList());
+        assertEquals(List.of(0, 0, 1, 1), trace.spans().stream().map(Trace.Span::depth).toList());
+        Trace.Span transaction = trace.spans().get(1);
+        Trace.Span bookFind = trace.spans().get(2);
+        assertTrue(bookFind.durationMicros() >= 2000);
+        assertTrue(bookFind.offsetMicros() >= transaction.offsetMicros());
+        assertTrue(transaction.durationMicros() >= bookFind.durationMicros());
+        assertTrue(trace.durationMicros() >= transaction.durationMicros());
+    }
+
+    @Test
+    void failedOperationsAreRecordedWithTheirError() {
+        TraceBuffer buffer = new TraceBuffer(10);
+        Tracer tracer = new Tracer(buffer, new TraceFile(objectMapper, "", Duration.ZERO), true, 100);
+
+        assertThrows(IllegalStateException.class, () -> tracer.trace("return", () -> {
+            tracer.span("borrowing.find", () -> {
+                throw new IllegalStateException("Book has already been returned");
+            });
+            return null;
+        }));
+
+        Trace trace = buffer.find("return", Duration.ZERO, 10).get(0);
+        assertEquals("IllegalStateException", trace.error());
+        assertEquals(1, trace.spans().size());
+        // The trace is over: stages run afterwards are not recorded anywhere
+        assertEquals("done", tracer.span("book.find", () -> "done"));
+        assertEquals(1, buffer.find(null, Duration.ZERO, 10).size());
+    }
+
+    @Test
+    void spansBeyondTheLimitAreCounted() {
+        TraceBuffer buffer = new TraceBuffer(10);
+        Tracer tracer = new Tracer(buffer, new TraceFile(objectMapper, "", Duration.ZERO), true, 3);
+
+        tracer.trace("notificationBatch", () -> {
+            for (int i = 0; i < 5; i++) {
+                tracer.span("mail.enqueue", () -> {
+                });
+            }
+            return null;
+        });
+
+        Trace trace = buffer.find(null, Duration.ZERO, 10).get(0);
+        assertEquals(3, trace.spans().size());
+        assertEquals(2, trace.droppedSpans());
+    }
+
+    @Test
+    void bufferKeepsTheMostRecentTraces() {
+        TraceBuffer buffer = new TraceBuffer(3);
+        Tracer tracer = new Tracer(buffer, new TraceFile(objectMapper, "", Duration.ZERO), true, 100);
+
+        for (int i = 0; i < 5; i++) {
+            String name = i % 2 == 0 ? "borrow" : "return";
+            tracer.trace(name, () -> null);
+        }
+
+        assertEquals(List.of("borrow", "return", "borrow"),
+                buffer.find(null, Duration.ZERO, 10).stream().map(Trace::name).toList());
+        assertEquals(2, buffer.find("borrow", Duration.ZERO, 10).size());
+        assertEquals(1, buffer.find(null, Duration.ZERO, 1).size());
+        assertTrue(buffer.find(null, Duration.ofHours(1), 10).isEmpty());
+    }
+
+    @Test
+    void concurrentRecordsFillTheBufferWithoutLosingSlots() throws Exception {
+        TraceBuffer buffer = new TraceBuffer(64);
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String name = "thread-" + t;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        buffer.record(new Trace(name, Instant.now(), i, null, List.of(), 0));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Trace> traces = buffer.find(null, Duration.ZERO, 100);
+        assertEquals(64, traces.size());
+        // Every slot holds a trace of its own, none was written twice
+        assertEquals(64, Set.copyOf(traces).size());
+    }
+
+    @Test
+    void slowTracesAreAppendedToTheFile(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("traces.ndjson");
+        TraceFile traceFile = new TraceFile(objectMapper, file.toString(), Duration.ofMillis(5));
+        Tracer tracer = new Tracer(new TraceBuffer(10), traceFile, true, 100);
+
+        tracer.trace("borrow", () -> null);
+        tracer.trace("return", () -> tracer.span("borrowing.save", () -> sleep(10)));
+        traceFile.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        JsonNode trace = objectMapper.readTree(lines.get(0));
+        assertEquals("return", trace.path("name").asText());
+        assertEquals("borrowing.save", trace.path("spans").path(0).path("name").asText());
+    }
+
+    @Test
+    void nothingIsRecordedWhenDisabled() {
+        TraceBuffer buffer = new TraceBuffer(10);
+        Tracer tracer = new Tracer(buffer, new TraceFile(objectMapper, "", Duration.ZERO), false, 100);
+
+        assertEquals("saved", tracer.trace("borrow", () -> tracer.span("borrowing.save", () -> "saved")));
+        assertTrue(buffer.find(null, Duration.ZERO, 10).isEmpty());
+    }
+
+    private static Object sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}